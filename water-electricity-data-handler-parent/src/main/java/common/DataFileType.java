@@ -10,4 +10,14 @@ public enum DataFileType {
     XSLX(".xlsx");
 
     private final String fileType;
+
+    public static DataFileType fromFileName(String fileName) {
+        if (fileName.endsWith(XSLX.fileType)) {
+            return XSLX;
+        }
+        if (fileName.endsWith(XLS.fileType)) {
+            return XLS;
+        }
+        return null;
+    }
 }
@@ -1,10 +1,19 @@
 package common.error.info;
 
+import file.handling.parser.CellError;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.List;
+
 @Getter
 @AllArgsConstructor
 public class WorkbookErrorInfo {
     private String cellCode;
+    //все ошибочные ячейки локального файла, если он разбирался в режиме проверки
+    private List<CellError> cellErrors;
+
+    public WorkbookErrorInfo(String cellCode) {
+        this.cellCode = cellCode;
+    }
 }
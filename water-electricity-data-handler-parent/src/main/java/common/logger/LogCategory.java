@@ -1,7 +1,8 @@
 package common.logger;
 
+//категории в порядке возрастания важности записи
 public enum LogCategory {
-    INFO,
     DEBUG,
+    INFO,
     ERROR
 }
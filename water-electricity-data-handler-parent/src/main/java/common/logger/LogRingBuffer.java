@@ -0,0 +1,82 @@
+package common.logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//ограниченный кольцевой буфер записей лога без блокировок: записи добавляют любые потоки,
+//забирает только поток записи в файл. Поля записи хранятся в параллельных массивах,
+//поэтому на каждую запись объекты не создаются.
+//Номер слота показывает его состояние: равен позиции записи - слот свободен для неё,
+//равен позиции + 1 - запись добавлена и может быть прочитана
+final class LogRingBuffer {
+    private final int mask;
+    private final AtomicLongArray slotSequences;
+    private final long[] times;
+    private final Logger[] loggers;
+    private final LogCategory[] categories;
+    private final String[] messages;
+
+    private final AtomicLong tail = new AtomicLong();
+    //читается и изменяется только потоком записи
+    private long head;
+
+    //capacity - степень двойки
+    LogRingBuffer(int capacity) {
+        mask = capacity - 1;
+        slotSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slotSequences.set(i, i);
+        }
+        times = new long[capacity];
+        loggers = new Logger[capacity];
+        categories = new LogCategory[capacity];
+        messages = new String[capacity];
+    }
+
+    //false, если буфер заполнен
+    boolean offer(long time, Logger logger, LogCategory category, String message) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = slotSequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    times[index] = time;
+                    loggers[index] = logger;
+                    categories[index] = category;
+                    messages[index] = message;
+                    //запись полей становится видна потоку записи вместе с номером слота
+                    slotSequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    //передача записей читателю по порядку, не больше maxCount. Возвращает число переданных записей
+    int drain(LogEntryReader reader, int maxCount) {
+        int count = 0;
+        while (count < maxCount) {
+            int index = (int) (head & mask);
+            if (slotSequences.get(index) != head + 1) {
+                break;
+            }
+            reader.read(times[index], loggers[index], categories[index], messages[index]);
+            loggers[index] = null;
+            messages[index] = null;
+            slotSequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    interface LogEntryReader {
+        void read(long time, Logger logger, LogCategory category, String message);
+    }
+}
@@ -0,0 +1,166 @@
+package common.logger;
+
+import lombok.val;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+//единственный поток записи лога в файл. Записи забираются из кольцевого буфера пачками,
+//файл сбрасывается на диск не чаще, чем раз в FLUSH_INTERVAL_NANOS, и при завершении программы
+final class LogWriter {
+    private static final int BUFFER_CAPACITY = 16384;
+    private static final int BATCH_SIZE = 1024;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long FULL_BUFFER_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    private static final String LOGS_FOLDER = "logs";
+
+    private static final LogWriter instance = new LogWriter();
+
+    private final LogRingBuffer buffer = new LogRingBuffer(BUFFER_CAPACITY);
+    private final Thread writerThread;
+    private volatile boolean stopped;
+
+    //используются только потоком записи
+    private final StringBuilder line = new StringBuilder();
+    private final Date date = new Date();
+    private Writer fileWriter;
+    private long dayStart;
+    private long nextDayStart;
+    private boolean unflushed;
+
+    private LogWriter() {
+        writerThread = new Thread(this::writeEntries, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "log-writer-shutdown"));
+    }
+
+    static LogWriter getInstance() {
+        return instance;
+    }
+
+    //при заполненном буфере записи не теряются: поток ждёт, пока поток записи освободит место
+    void append(long time, Logger logger, LogCategory category, String message) {
+        while (!buffer.offer(time, logger, category, message)) {
+            if (stopped) {
+                System.err.println(message);
+                return;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(FULL_BUFFER_WAIT_NANOS);
+        }
+    }
+
+    private void writeEntries() {
+        long lastFlushTime = System.nanoTime();
+        while (true) {
+            val stopping = stopped;
+            val count = buffer.drain(this::writeEntry, BATCH_SIZE);
+            val now = System.nanoTime();
+            if (count < BATCH_SIZE || now - lastFlushTime >= FLUSH_INTERVAL_NANOS) {
+                flush();
+                lastFlushTime = now;
+            }
+            if (count == 0) {
+                if (stopping) {
+                    close();
+                    return;
+                }
+                LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+            }
+        }
+    }
+
+    private void writeEntry(long time, Logger logger, LogCategory category, String message) {
+        if (time < dayStart || time >= nextDayStart) {
+            openLogFile(time);
+        }
+        if (fileWriter == null) {
+            return;
+        }
+        date.setTime(time);
+        line.setLength(0);
+        line.append('[').append(date).append(']')
+                .append('[').append(logger.className).append(']')
+                .append('[').append(logger.methodName).append(']')
+                .append('[').append(category.name()).append(']')
+                .append(": ").append(message).append(System.lineSeparator());
+        try {
+            fileWriter.append(line);
+            unflushed = true;
+        } catch (IOException e) {
+            System.err.println("Log file writing error: " + e.getMessage());
+        }
+    }
+
+    //файл лога - отдельный для каждого дня
+    private void openLogFile(long time) {
+        close();
+        val calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        val year = String.valueOf(calendar.get(Calendar.YEAR));
+        val month = String.valueOf(calendar.get(Calendar.MONTH));
+        val day = String.valueOf(calendar.get(Calendar.DAY_OF_MONTH));
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        dayStart = calendar.getTimeInMillis();
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        nextDayStart = calendar.getTimeInMillis();
+        try {
+            val logsFolder = new File(LOGS_FOLDER);
+            if (!logsFolder.exists() && !logsFolder.mkdir()) {
+                throw new IOException("Log file folder creation error");
+            }
+            val logFile = new File(logsFolder, "log_" + year + "." + month + "." + day + ".txt");
+            fileWriter = new BufferedWriter(new FileWriter(logFile, true));
+        } catch (IOException e) {
+            System.err.println("Log file writing error: " + e.getMessage());
+        }
+    }
+
+    private void flush() {
+        if (fileWriter == null || !unflushed) {
+            return;
+        }
+        try {
+            fileWriter.flush();
+            unflushed = false;
+        } catch (IOException e) {
+            System.err.println("Log file writing error: " + e.getMessage());
+        }
+    }
+
+    private void close() {
+        if (fileWriter == null) {
+            return;
+        }
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            System.err.println("Log file writing error: " + e.getMessage());
+        }
+        fileWriter = null;
+        unflushed = false;
+    }
+
+    //записи, добавленные до завершения программы, записываются в файл
+    private void stop() {
+        stopped = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,63 +1,76 @@
 package common.logger;
 
-import lombok.val;
-
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
+//записи передаются потоку записи лога (LogWriter), вызов log не выполняет операций ввода-вывода
 public class Logger {
-    private FileWriter fileWriter;
-    private String className;
-    private String methodName;
+    private static final String MINIMUM_CATEGORY_PROPERTY = "logger.category";
+    private static final LogCategory DEFAULT_MINIMUM_CATEGORY = LogCategory.INFO;
+
+    //записи менее важных категорий не создаются. Задаётся системным свойством logger.category
+    private static volatile LogCategory minimumCategory = readMinimumCategory();
+
+    //экземпляры по имени класса и имени метода
+    private static final ConcurrentMap<String, ConcurrentMap<String, Logger>> loggers = new ConcurrentHashMap<>();
+
+    final String className;
+    final String methodName;
 
     private Logger(String className, String methodName) {
         this.className = className;
         this.methodName = methodName;
-        try {
-            val calendar = Calendar.getInstance();
-            val year = String.valueOf(calendar.get(Calendar.YEAR));
-            val month = String.valueOf(calendar.get(Calendar.MONTH));
-            val day = String.valueOf(calendar.get(Calendar.DAY_OF_MONTH));
-            val logFilePath = "logs/log_" + year + "." + month + "." + day + ".txt";
-            File logFile = new File(logFilePath);
-            if (!logFile.exists()) {
-                logFile = new File("logs");
-                if (!logFile.exists() && !logFile.mkdir()) {
-                    throw new IOException("Log file folder creation error");
-                }
-                logFile = new File(logFilePath);
-            }
-            fileWriter = new FileWriter(logFile, true);
-        } catch (IOException e) {
-            System.err.println("Log file writing error: " + e.getMessage());
+    }
+
+    public static Logger getLogger(String className, String methodName) {
+        ConcurrentMap<String, Logger> classLoggers = loggers.get(className);
+        if (classLoggers == null) {
+            classLoggers = loggers.computeIfAbsent(className, name -> new ConcurrentHashMap<>());
+        }
+        Logger logger = classLoggers.get(methodName);
+        if (logger == null) {
+            logger = classLoggers.computeIfAbsent(methodName, name -> new Logger(className, methodName));
         }
+        return logger;
     }
 
-    synchronized public static Logger getLogger(String className, String methodName) {
-        return new Logger(className, methodName);
+    public static LogCategory getMinimumCategory() {
+        return minimumCategory;
     }
 
-    synchronized public void log(LogCategory category, String message) {
-        try {
-            val logLine = formatLogLine(category, message);
-            fileWriter.write(logLine);
-            fileWriter.flush();
-        } catch (IOException e) {
-            System.err.println("Log file writing error");
-            System.exit(-1);
+    public static void setMinimumCategory(LogCategory category) {
+        minimumCategory = category;
+    }
+
+    //для частых вызовов: проверка до построения сообщения не создаёт объектов
+    public boolean isEnabled(LogCategory category) {
+        return category.compareTo(minimumCategory) >= 0;
+    }
+
+    public void log(LogCategory category, String message) {
+        if (isEnabled(category)) {
+            LogWriter.getInstance().append(System.currentTimeMillis(), this, category, message);
         }
     }
 
-    private String formatLogLine(LogCategory category, String message) {
-        val date = new Date();
-        return "[" + date + "]" +
-                "[" + className + "]" +
-                "[" + methodName + "]" +
-                "[" + Thread.currentThread().getStackTrace()[2].getLineNumber() + "]" +
-                "[" + category.name() + "]" +
-                ": " + message + System.lineSeparator();
+    //сообщение строится, только если категория записывается
+    public void log(LogCategory category, Supplier<String> messageSupplier) {
+        if (isEnabled(category)) {
+            LogWriter.getInstance().append(System.currentTimeMillis(), this, category, messageSupplier.get());
+        }
+    }
+
+    private static LogCategory readMinimumCategory() {
+        String category = System.getProperty(MINIMUM_CATEGORY_PROPERTY);
+        if (category == null) {
+            return DEFAULT_MINIMUM_CATEGORY;
+        }
+        try {
+            return LogCategory.valueOf(category.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log category: " + category);
+            return DEFAULT_MINIMUM_CATEGORY;
+        }
     }
-}
\ No newline at end of file
+}
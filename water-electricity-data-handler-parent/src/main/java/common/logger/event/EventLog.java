@@ -0,0 +1,173 @@
+package common.logger.event;
+
+import lombok.val;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+//журнал событий блокировок и FTP в двоичном виде. Записи пишутся в отображённый в память файл
+//фиксированного размера, запись не выполняет системных вызовов и не строит строк;
+//имена событий и файлов сохраняются в файле один раз и заменяются в записях номерами.
+//При заполнении файла создаётся следующий, старые файлы сверх MAX_SEGMENTS удаляются.
+//Файлы читаются утилитой EventLogDecoder
+public class EventLog {
+    public static final int NO_REGION = -1;
+    public static final long NO_VALUE = -1;
+
+    private static final String ENABLED_PROPERTY = "event.log";
+    private static final String EVENTS_FOLDER = "logs";
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MAX_STRING_LENGTH = 512;
+
+    private static final EventLog instance = new EventLog();
+
+    //журнал отключается системным свойством event.log=false
+    private volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+
+    //изменяются под блокировкой экземпляра
+    private MappedByteBuffer segment;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private long lastSegmentTime;
+
+    private EventLog() {
+    }
+
+    public static EventLog getEventLog() {
+        return instance;
+    }
+
+    public void record(LogEvent event, String fileName) {
+        record(event, fileName, NO_REGION, NO_VALUE, NO_VALUE);
+    }
+
+    public void record(LogEvent event, String fileName, long durationNanos) {
+        record(event, fileName, NO_REGION, durationNanos, NO_VALUE);
+    }
+
+    public void record(LogEvent event, String fileName, long durationNanos, long bytes) {
+        record(event, fileName, NO_REGION, durationNanos, bytes);
+    }
+
+    public void record(LogEvent event, String fileName, int region, long durationNanos, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        val time = System.currentTimeMillis();
+        val threadId = Thread.currentThread().getId();
+        synchronized (this) {
+            if (!ensureSpace(event, fileName)) {
+                return;
+            }
+            val eventId = internString(event.name());
+            val fileNameId = fileName == null ? EventLogFormat.NO_ID : internString(fileName);
+            val position = segment.position();
+            segment.position(position + 1);
+            segment.putLong(time)
+                    .putLong(threadId)
+                    .putInt(eventId)
+                    .putInt(fileNameId)
+                    .putInt(region)
+                    .putLong(durationNanos)
+                    .putLong(bytes);
+            //тип записывается последним: прочитанная запись всегда заполнена целиком
+            segment.put(position, EventLogFormat.EVENT_RECORD);
+        }
+    }
+
+    //при нехватке места в текущем файле создаётся новый
+    private boolean ensureSpace(LogEvent event, String fileName) {
+        if (segment != null && segment.remaining() >= requiredSpace(event, fileName)) {
+            return true;
+        }
+        try {
+            openSegment();
+            return true;
+        } catch (IOException e) {
+            enabled = false;
+            segment = null;
+            System.err.println("Event log writing error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private int requiredSpace(LogEvent event, String fileName) {
+        int space = EventLogFormat.EVENT_RECORD_SIZE;
+        if (!stringIds.containsKey(event.name())) {
+            space += maxStringRecordSize(event.name());
+        }
+        if (fileName != null && !stringIds.containsKey(fileName)) {
+            space += maxStringRecordSize(fileName);
+        }
+        return space;
+    }
+
+    private static int maxStringRecordSize(String value) {
+        //символ занимает в UTF-8 не больше трёх байт
+        return EventLogFormat.STRING_RECORD_HEADER_SIZE + Math.min(value.length(), MAX_STRING_LENGTH) * 3;
+    }
+
+    private int internString(String value) {
+        val id = stringIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        val newId = stringIds.size();
+        val bytes = truncate(value).getBytes(StandardCharsets.UTF_8);
+        val position = segment.position();
+        segment.position(position + 1);
+        segment.putInt(newId)
+                .putShort((short) bytes.length)
+                .put(bytes);
+        segment.put(position, EventLogFormat.STRING_RECORD);
+        stringIds.put(value, newId);
+        return newId;
+    }
+
+    private static String truncate(String value) {
+        return value.length() > MAX_STRING_LENGTH ? value.substring(0, MAX_STRING_LENGTH) : value;
+    }
+
+    //файл отображается в память целиком, после создания отображения канал не нужен
+    private void openSegment() throws IOException {
+        val folder = new File(EVENTS_FOLDER);
+        if (!folder.exists() && !folder.mkdir()) {
+            throw new IOException("Event log folder creation error");
+        }
+        //имена файлов упорядочены по времени создания
+        val segmentTime = Math.max(System.currentTimeMillis(), lastSegmentTime + 1);
+        lastSegmentTime = segmentTime;
+        val segmentFile = new File(folder,
+                EventLogFormat.FILE_NAME_PREFIX + segmentTime + EventLogFormat.FILE_NAME_SUFFIX);
+        try (val file = new RandomAccessFile(segmentFile, "rw")) {
+            //незаполненная часть файла должна состоять из нулей
+            file.setLength(0);
+            segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        }
+        stringIds.clear();
+        segment.putInt(EventLogFormat.MAGIC)
+                .putShort(EventLogFormat.VERSION)
+                .putLong(segmentTime);
+        deleteOldSegments(folder);
+    }
+
+    private void deleteOldSegments(File folder) {
+        val segmentFiles = folder.listFiles((dir, name) -> EventLogFormat.isEventLogFile(name));
+        if (segmentFiles == null || segmentFiles.length <= MAX_SEGMENTS) {
+            return;
+        }
+        Arrays.sort(segmentFiles, EventLogDecoder.SEGMENT_ORDER);
+        for (int i = 0; i < segmentFiles.length - MAX_SEGMENTS; i++) {
+            if (!segmentFiles[i].delete()) {
+                System.err.println("Event log file deleting error: " + segmentFiles[i].getName());
+            }
+        }
+    }
+}
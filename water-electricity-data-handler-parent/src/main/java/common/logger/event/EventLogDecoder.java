@@ -0,0 +1,177 @@
+package common.logger.event;
+
+import lombok.val;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//вывод файлов журнала событий в текстовом виде или в CSV:
+//java -cp ... common.logger.event.EventLogDecoder [-csv] [файл или папка ...]
+//Без аргументов читаются все файлы журнала из папки logs
+public class EventLogDecoder {
+    static final Comparator<File> SEGMENT_ORDER = Comparator.comparing(File::getName);
+
+    private static final String CSV_OPTION = "-csv";
+    private static final String DEFAULT_FOLDER = "logs";
+    private static final String CSV_HEADER = "time,thread,event,file,region,duration_ms,bytes";
+    private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    private final PrintWriter output;
+    private final boolean csv;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+    private final Date date = new Date();
+    private final StringBuilder line = new StringBuilder();
+
+    public EventLogDecoder(PrintWriter output, boolean csv) {
+        this.output = output;
+        this.csv = csv;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean csv = false;
+        List<File> files = new ArrayList<>();
+        for (val arg : args) {
+            if (arg.equals(CSV_OPTION)) {
+                csv = true;
+            } else {
+                files.addAll(findSegments(new File(arg)));
+            }
+        }
+        if (files.isEmpty()) {
+            files.addAll(findSegments(new File(DEFAULT_FOLDER)));
+        }
+        val output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        val decoder = new EventLogDecoder(output, csv);
+        decoder.writeHeader();
+        for (val file : files) {
+            try {
+                decoder.decode(file);
+            } catch (IOException e) {
+                System.err.println("Event log reading error '" + file + "': " + e.getMessage());
+            }
+        }
+        output.flush();
+    }
+
+    public void writeHeader() {
+        if (csv) {
+            output.println(CSV_HEADER);
+        }
+    }
+
+    public void decode(File file) throws IOException {
+        val buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buffer.remaining() < EventLogFormat.HEADER_SIZE
+                || buffer.getInt() != EventLogFormat.MAGIC
+                || buffer.getShort() != EventLogFormat.VERSION) {
+            throw new IOException("Not an event log file");
+        }
+        buffer.getLong();
+        //строки нумеруются заново в каждом файле
+        Map<Integer, String> strings = new HashMap<>();
+        while (buffer.hasRemaining()) {
+            val recordType = buffer.get();
+            if (recordType == EventLogFormat.STRING_RECORD
+                    && buffer.remaining() >= EventLogFormat.STRING_RECORD_HEADER_SIZE - 1) {
+                val id = buffer.getInt();
+                val length = buffer.getShort();
+                if (buffer.remaining() < length) {
+                    break;
+                }
+                strings.put(id, new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8));
+                buffer.position(buffer.position() + length);
+            } else if (recordType == EventLogFormat.EVENT_RECORD
+                    && buffer.remaining() >= EventLogFormat.EVENT_RECORD_SIZE - 1) {
+                val time = buffer.getLong();
+                val threadId = buffer.getLong();
+                val eventName = strings.get(buffer.getInt());
+                val fileName = strings.get(buffer.getInt());
+                val region = buffer.getInt();
+                val durationNanos = buffer.getLong();
+                val bytes = buffer.getLong();
+                writeEvent(time, threadId, eventName, fileName, region, durationNanos, bytes);
+            } else {
+                //END_OF_RECORDS или незаконченная запись
+                break;
+            }
+        }
+    }
+
+    private void writeEvent(long time, long threadId, String eventName, String fileName, int region,
+                            long durationNanos, long bytes) {
+        date.setTime(time);
+        line.setLength(0);
+        if (csv) {
+            line.append(dateFormat.format(date))
+                    .append(',').append(threadId)
+                    .append(',').append(eventName)
+                    .append(',');
+            if (fileName != null) {
+                line.append('"').append(fileName.replace("\"", "\"\"")).append('"');
+            }
+            line.append(',');
+            if (region != EventLog.NO_REGION) {
+                line.append(region);
+            }
+            line.append(',');
+            if (durationNanos != EventLog.NO_VALUE) {
+                line.append(formatMillis(durationNanos));
+            }
+            line.append(',');
+            if (bytes != EventLog.NO_VALUE) {
+                line.append(bytes);
+            }
+        } else {
+            line.append('[').append(dateFormat.format(date)).append(']')
+                    .append("[thread ").append(threadId).append(']')
+                    .append('[').append(eventName).append(']');
+            if (fileName != null) {
+                line.append(" file = '").append(fileName).append('\'');
+            }
+            if (region != EventLog.NO_REGION) {
+                line.append(" region = ").append(region);
+            }
+            if (durationNanos != EventLog.NO_VALUE) {
+                line.append(" duration = ").append(formatMillis(durationNanos)).append(" ms");
+            }
+            if (bytes != EventLog.NO_VALUE) {
+                line.append(" bytes = ").append(bytes);
+            }
+        }
+        output.println(line);
+    }
+
+    private static String formatMillis(long nanos) {
+        //точка как разделитель дробной части при любой локали, иначе CSV разбивается на лишние столбцы
+        return String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    //папка - все файлы журнала в ней в порядке создания
+    private static List<File> findSegments(File file) {
+        if (!file.isDirectory()) {
+            return Arrays.asList(file);
+        }
+        val segmentFiles = file.listFiles((dir, name) -> EventLogFormat.isEventLogFile(name));
+        if (segmentFiles == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(segmentFiles, SEGMENT_ORDER);
+        return Arrays.asList(segmentFiles);
+    }
+}
@@ -0,0 +1,35 @@
+package common.logger.event;
+
+//формат файла журнала событий.
+//Заголовок: MAGIC (int), VERSION (short), время создания файла (long).
+//Далее записи, каждая начинается с типа (byte):
+//STRING_RECORD - id (int), длина (short), строка в UTF-8; строка записывается один раз на файл,
+//события ссылаются на неё по id;
+//EVENT_RECORD - время (long), id потока (long), id имени события (int), id имени файла (int),
+//регион (int), длительность в наносекундах (long), число байт (long).
+//Тип END_OF_RECORDS (нулевой байт незаполненной части файла) - конец записей
+final class EventLogFormat {
+    static final int MAGIC = 0x57454C47; //"WELG"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 4 + 2 + 8;
+
+    static final byte END_OF_RECORDS = 0;
+    static final byte STRING_RECORD = 1;
+    static final byte EVENT_RECORD = 2;
+
+    static final int STRING_RECORD_HEADER_SIZE = 1 + 4 + 2;
+    static final int EVENT_RECORD_SIZE = 1 + 8 + 8 + 4 + 4 + 4 + 8 + 8;
+
+    //значение не задано
+    static final int NO_ID = -1;
+
+    static final String FILE_NAME_PREFIX = "events_";
+    static final String FILE_NAME_SUFFIX = ".bin";
+
+    private EventLogFormat() {
+    }
+
+    static boolean isEventLogFile(String fileName) {
+        return fileName.startsWith(FILE_NAME_PREFIX) && fileName.endsWith(FILE_NAME_SUFFIX);
+    }
+}
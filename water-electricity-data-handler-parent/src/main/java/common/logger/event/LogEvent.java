@@ -0,0 +1,20 @@
+package common.logger.event;
+
+//события блокировок и обмена с FTP сервером, записываемые в журнал событий (EventLog)
+public enum LogEvent {
+    LOCK_WAITED,
+    LOCK_CREATED,
+    LOCK_CREATE_FAILED,
+    LOCK_UPDATED,
+    LOCK_DELETED,
+    SERVER_FILE_LOCKED,
+    SERVER_FILE_RELEASED,
+    FTP_FILE_RETRIEVED,
+    FTP_FILE_RETRIEVE_FAILED,
+    FTP_FILE_SENT,
+    FTP_FILE_SEND_FAILED,
+    FTP_FILE_DELETED,
+    FTP_FILE_DELETE_FAILED,
+    FTP_FILE_NAMES_RECEIVED,
+    FTP_CONNECTION_FAILED
+}
@@ -0,0 +1,163 @@
+package file.handling.export;
+
+import common.DataType;
+import common.logger.LogCategory;
+import common.logger.Logger;
+import file.handling.model.BaseDataset;
+import file.handling.parser.BaseParser;
+import file.handling.util.DataGroupsGetter;
+import lombok.Data;
+import lombok.val;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+//выгрузка данных серверного файла в CSV или TSV: столбцы региона и группы, затем столбцы данных
+//в порядке серверного файла. Строки записываются в файл по одной из столбцов части набора данных,
+//без промежуточных объектов строк и книги Excel
+@Data
+public abstract class BaseServerFileExporter<DatasetType extends BaseDataset<?>> {
+    private static final String REGION_FILE_NAME_PART = "_region_";
+    //номера регионов не отрицательны
+    private static final int ALL_REGIONS = -1;
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+    private static final List<String> COMMON_COLUMN_NAMES = Arrays.asList(
+            "region", "group", "group_name", "address", "biggest_floor", "smallest_floor", "joint");
+
+    protected String serverFileName;
+    protected File outputFolder;
+    protected ExportFileType exportFileType = ExportFileType.CSV;
+    //для каждого региона записывается отдельный файл, все файлы записываются за один проход
+    protected boolean partitionedByRegion;
+
+    protected abstract BaseParser<?, DatasetType> createParser();
+
+    protected abstract DataType getDataType();
+
+    protected abstract List<String> getDataColumnNames();
+
+    protected abstract void writeDataValues(CsvRowWriter rowWriter, DatasetType data, int row) throws IOException;
+
+    //записанные файлы; если файл не удалось разобрать или записать, выбрасывается IOException,
+    //начатые файлы удаляются. Серверный файл читается последовательно частями строк, каждая часть
+    //сразу записывается в файлы выгрузки, весь набор данных в памяти не хранится
+    public List<File> export() throws IOException {
+        val logger = Logger.getLogger(getClass().getName(), "export");
+        logger.log(LogCategory.INFO, "Exporting server file '" + serverFileName + "' to " + outputFolder);
+        //файлы выгрузки по регионам в порядке номеров, ALL_REGIONS - файл всех строк
+        val exportFiles = new TreeMap<Integer, ExportFile>();
+        boolean exported = false;
+        try {
+            if (!partitionedByRegion) {
+                exportFiles.put(ALL_REGIONS, new ExportFile(getBaseName() + exportFileType.getFileType()));
+            }
+            createParser().readServerFile(serverFileName, data -> {
+                try {
+                    writeRows(exportFiles, data);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            exported = true;
+        } finally {
+            closeExportFiles(exportFiles.values(), exported);
+        }
+        return exportFiles.values().stream()
+                .map(exportFile -> exportFile.file)
+                .collect(Collectors.toList());
+    }
+
+    //строки записываются в порядке серверного файла, в файл своего региона, если выгрузка по регионам
+    private void writeRows(Map<Integer, ExportFile> exportFiles, DatasetType data) throws IOException {
+        for (int row = 0; row < data.getSize(); row++) {
+            val region = partitionedByRegion ? data.getRegion(row) : ALL_REGIONS;
+            ExportFile exportFile = exportFiles.get(region);
+            if (exportFile == null) {
+                exportFile = new ExportFile(
+                        getBaseName() + REGION_FILE_NAME_PART + region + exportFileType.getFileType());
+                exportFiles.put(region, exportFile);
+            }
+            exportFile.writeRow(data, row);
+        }
+    }
+
+    //при ошибке выгрузки все её файлы удаляются
+    private void closeExportFiles(Collection<ExportFile> exportFiles, boolean exported) throws IOException {
+        val logger = Logger.getLogger(getClass().getName(), "closeExportFiles");
+        IOException closeException = null;
+        for (val exportFile : exportFiles) {
+            try {
+                exportFile.writer.close();
+            } catch (IOException e) {
+                closeException = closeException != null ? closeException : e;
+            }
+        }
+        for (val exportFile : exportFiles) {
+            if (!exported || closeException != null) {
+                if (!exportFile.file.delete()) {
+                    logger.log(LogCategory.ERROR, "File '" + exportFile.file + "' wasn't deleted");
+                }
+            } else {
+                logger.log(LogCategory.INFO,
+                        "File '" + exportFile.file + "' was written, rows = " + exportFile.rowCount);
+            }
+        }
+        if (exported && closeException != null) {
+            throw closeException;
+        }
+    }
+
+    //имя серверного файла без расширения
+    private String getBaseName() {
+        val extensionStart = serverFileName.lastIndexOf('.');
+        return extensionStart > 0 ? serverFileName.substring(0, extensionStart) : serverFileName;
+    }
+
+    //файл выгрузки, строка заголовка записывается при открытии
+    private class ExportFile {
+        private final File file;
+        private final Writer writer;
+        private final CsvRowWriter rowWriter;
+        private int rowCount;
+
+        ExportFile(String fileName) throws IOException {
+            file = new File(outputFolder, fileName);
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+                    WRITER_BUFFER_SIZE);
+            rowWriter = new CsvRowWriter(writer, exportFileType.getSeparator());
+            for (val columnName : COMMON_COLUMN_NAMES) {
+                rowWriter.writeValue(columnName);
+            }
+            for (val columnName : getDataColumnNames()) {
+                rowWriter.writeValue(columnName);
+            }
+            rowWriter.endRow();
+        }
+
+        void writeRow(DatasetType data, int row) throws IOException {
+            val group = data.getGroup(row);
+            rowWriter.writeValue(data.getRegion(row));
+            rowWriter.writeValue(group);
+            rowWriter.writeValue(DataGroupsGetter.getGroup(group, getDataType()));
+            rowWriter.writeValue(data.getAddress(row));
+            rowWriter.writeValue(data.getBiggestFloor(row));
+            rowWriter.writeValue(data.getSmallestFloor(row));
+            rowWriter.writeValue(data.getJoint(row));
+            writeDataValues(rowWriter, data, row);
+            rowWriter.endRow();
+            rowCount++;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package file.handling.export;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.io.Writer;
+
+//запись строк по RFC 4180: значения с разделителем, кавычками или переводом строки заключаются в кавычки,
+//кавычки внутри значения удваиваются, строки заканчиваются CRLF. Строки файла не хранятся в памяти
+class CsvRowWriter {
+    private static final String LINE_END = "\r\n";
+
+    private final Writer writer;
+    private final char separator;
+    private boolean firstValue = true;
+
+    CsvRowWriter(Writer writer, char separator) {
+        this.writer = writer;
+        this.separator = separator;
+    }
+
+    void writeValue(String value) throws IOException {
+        startValue();
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            val c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    void writeValue(int value) throws IOException {
+        startValue();
+        writer.write(Integer.toString(value));
+    }
+
+    //Double.toString не зависит от локали и сохраняет значение без потери точности
+    void writeValue(double value) throws IOException {
+        startValue();
+        writer.write(Double.toString(value));
+    }
+
+    void endRow() throws IOException {
+        writer.write(LINE_END);
+        firstValue = true;
+    }
+
+    private void startValue() throws IOException {
+        if (!firstValue) {
+            writer.write(separator);
+        }
+        firstValue = false;
+    }
+
+    private boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            val c = value.charAt(i);
+            if (c == separator || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
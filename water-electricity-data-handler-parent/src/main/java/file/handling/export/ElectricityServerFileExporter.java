@@ -0,0 +1,42 @@
+package file.handling.export;
+
+import common.DataType;
+import file.handling.model.ElectricityDataset;
+import file.handling.parser.ElectricityDataParser;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+class ElectricityServerFileExporter extends BaseServerFileExporter<ElectricityDataset> {
+    private static final List<String> DATA_COLUMN_NAMES = Arrays.asList("has_accounting_device",
+            "expense_house_first_month", "expense_house_second_month",
+            "expense_not_living_first_month", "expense_not_living_second_month",
+            "expense_individ_first_month", "expense_individ_second_month");
+
+    @Override
+    protected ElectricityDataParser createParser() {
+        return new ElectricityDataParser();
+    }
+
+    @Override
+    protected DataType getDataType() {
+        return DataType.ELECTRICITY;
+    }
+
+    @Override
+    protected List<String> getDataColumnNames() {
+        return DATA_COLUMN_NAMES;
+    }
+
+    @Override
+    protected void writeDataValues(CsvRowWriter rowWriter, ElectricityDataset data, int row) throws IOException {
+        rowWriter.writeValue(data.getHasAccountingDevice(row));
+        rowWriter.writeValue(data.getExpenseHouseFirstMonth(row));
+        rowWriter.writeValue(data.getExpenseHouseSecondMonth(row));
+        rowWriter.writeValue(data.getExpenseNotLivingFirstMonth(row));
+        rowWriter.writeValue(data.getExpenseNotLivingSecondMonth(row));
+        rowWriter.writeValue(data.getExpenseIndividFirstMonth(row));
+        rowWriter.writeValue(data.getExpenseIndividSecondMonth(row));
+    }
+}
@@ -0,0 +1,14 @@
+package file.handling.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ExportFileType {
+    CSV(".csv", ','),
+    TSV(".tsv", '\t');
+
+    private final String fileType;
+    private final char separator;
+}
@@ -0,0 +1,61 @@
+package file.handling.export;
+
+import common.DataType;
+import lombok.val;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//выгрузка серверного файла в CSV из командной строки:
+//java -cp ... file.handling.export.ServerFileExportCommand [-tsv] [-regions] water|electricity файл [папка]
+//-tsv - значения разделяются табуляцией, -regions - отдельный файл для каждого региона.
+//Без папки файлы записываются в текущую папку
+public class ServerFileExportCommand {
+    private static final String TSV_OPTION = "-tsv";
+    private static final String REGIONS_OPTION = "-regions";
+    private static final String USAGE =
+            "Usage: ServerFileExportCommand [-tsv] [-regions] water|electricity <server file> [output folder]";
+
+    public static void main(String[] args) {
+        val builder = new ServerFileExporterBuilder();
+        List<String> arguments = new ArrayList<>();
+        for (val arg : args) {
+            if (arg.equals(TSV_OPTION)) {
+                builder.setExportFileType(ExportFileType.TSV);
+            } else if (arg.equals(REGIONS_OPTION)) {
+                builder.setPartitionedByRegion(true);
+            } else {
+                arguments.add(arg);
+            }
+        }
+        val dataType = arguments.isEmpty() ? null : parseDataType(arguments.get(0));
+        if (dataType == null || arguments.size() < 2 || arguments.size() > 3) {
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        val outputFolder = new File(arguments.size() == 3 ? arguments.get(2) : ".");
+        val serverFileExporter = builder.setServerFileName(arguments.get(1))
+                .setOutputFolder(outputFolder)
+                .build(dataType);
+        try {
+            for (val file : serverFileExporter.export()) {
+                System.out.println(file.getPath());
+            }
+        } catch (IOException e) {
+            System.err.println("Export error '" + arguments.get(1) + "': " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static DataType parseDataType(String value) {
+        for (val dataType : DataType.values()) {
+            if (dataType.name().equalsIgnoreCase(value)) {
+                return dataType;
+            }
+        }
+        return null;
+    }
+}
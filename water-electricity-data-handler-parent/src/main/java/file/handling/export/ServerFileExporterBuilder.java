@@ -0,0 +1,51 @@
+package file.handling.export;
+
+import common.DataType;
+
+import java.io.File;
+
+public class ServerFileExporterBuilder {
+    private String serverFileName;
+    private File outputFolder;
+    private ExportFileType exportFileType = ExportFileType.CSV;
+    private boolean partitionedByRegion;
+
+    public ServerFileExporterBuilder setServerFileName(String serverFileName) {
+        this.serverFileName = serverFileName;
+        return this;
+    }
+
+    public ServerFileExporterBuilder setOutputFolder(File outputFolder) {
+        this.outputFolder = outputFolder;
+        return this;
+    }
+
+    public ServerFileExporterBuilder setExportFileType(ExportFileType exportFileType) {
+        this.exportFileType = exportFileType;
+        return this;
+    }
+
+    public ServerFileExporterBuilder setPartitionedByRegion(boolean partitionedByRegion) {
+        this.partitionedByRegion = partitionedByRegion;
+        return this;
+    }
+
+    public BaseServerFileExporter<?> build(DataType dataType) {
+        BaseServerFileExporter<?> serverFileExporter;
+        switch (dataType) {
+            case WATER:
+                serverFileExporter = new WaterServerFileExporter();
+                break;
+            case ELECTRICITY:
+                serverFileExporter = new ElectricityServerFileExporter();
+                break;
+            default:
+                return null;
+        }
+        serverFileExporter.setServerFileName(serverFileName);
+        serverFileExporter.setOutputFolder(outputFolder);
+        serverFileExporter.setExportFileType(exportFileType);
+        serverFileExporter.setPartitionedByRegion(partitionedByRegion);
+        return serverFileExporter;
+    }
+}
@@ -0,0 +1,39 @@
+package file.handling.export;
+
+import common.DataType;
+import file.handling.model.WaterDataset;
+import file.handling.parser.WaterDataParser;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+class WaterServerFileExporter extends BaseServerFileExporter<WaterDataset> {
+    private static final List<String> DATA_COLUMN_NAMES = Arrays.asList("people",
+            "has_cold_water_accounting_device", "has_hot_water_accounting_device",
+            "expense_house_cold", "expense_house_hot");
+
+    @Override
+    protected WaterDataParser createParser() {
+        return new WaterDataParser();
+    }
+
+    @Override
+    protected DataType getDataType() {
+        return DataType.WATER;
+    }
+
+    @Override
+    protected List<String> getDataColumnNames() {
+        return DATA_COLUMN_NAMES;
+    }
+
+    @Override
+    protected void writeDataValues(CsvRowWriter rowWriter, WaterDataset data, int row) throws IOException {
+        rowWriter.writeValue(data.getPeople(row));
+        rowWriter.writeValue(data.getHasColdWaterAccountingDevice(row));
+        rowWriter.writeValue(data.getHasHotWaterAccountingDevice(row));
+        rowWriter.writeValue(data.getExpenseHouseCold(row));
+        rowWriter.writeValue(data.getExpenseHouseHot(row));
+    }
+}
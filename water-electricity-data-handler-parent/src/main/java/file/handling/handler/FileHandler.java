@@ -6,8 +6,12 @@ import common.error.info.ErrorInfo;
 import common.error.info.ErrorType;
 import common.logger.LogCategory;
 import common.logger.Logger;
+import common.logger.event.EventLog;
+import common.logger.event.LogEvent;
+import file.handling.handler.server.file.creator.BaseServerFileCreator;
 import file.handling.handler.server.file.creator.ServerFileCreatorBuilder;
 import file.handling.handler.server.file.deleter.ServerFileRegionDeleterBuilder;
+import file.handling.handler.server.file.modifier.BaseServerFileModifier;
 import file.handling.handler.server.file.modifier.ServerFileModifierBuilder;
 import file.handling.util.HandlingType;
 import lombok.Builder;
@@ -18,6 +22,7 @@ import server.connector.lock.LockFileController;
 import server.connector.lock.LockFileMonitor;
 
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Builder
@@ -27,15 +32,52 @@ public class FileHandler {
 
     private String serverFileName;
     private File localFile;
+    private List<File> localFiles;
     private DataFileType dataFileType;
     private DataType dataType;
     private int regionToDelete;
 
     public ErrorInfo processFileHandling(HandlingType handlingType) {
         val logger = Logger.getLogger(getClass().toString(), "processWaterFileHandling");
+        //разбор и проверка локальных файлов выполняются до ожидания блокировки, чтобы
+        //серверный файл был заблокирован только на время загрузки, слияния и выгрузки
+        BaseServerFileCreator serverFileCreator = null;
+        BaseServerFileModifier<?> serverFileModifier = null;
+        ErrorInfo prepareResult = null;
+        switch (handlingType) {
+            case CREATE:
+                serverFileCreator = new ServerFileCreatorBuilder()
+                        .setServerFileName(serverFileName)
+                        .setLocalFile(localFile)
+                        .setDataFileType(dataFileType)
+                        .build(dataType);
+                prepareResult = serverFileCreator.prepareServerFile();
+                break;
+            case MODIFY:
+                serverFileModifier = new ServerFileModifierBuilder()
+                        .setServerFileName(serverFileName)
+                        .setLocalFile(localFile)
+                        .setDataFileType(dataFileType)
+                        .build(dataType);
+                prepareResult = serverFileModifier.prepareLocalFiles();
+                break;
+            case MODIFY_WITH_LOCAL_FILES:
+                serverFileModifier = new ServerFileModifierBuilder()
+                        .setServerFileName(serverFileName)
+                        .setLocalFiles(localFiles)
+                        .setDataFileType(dataFileType)
+                        .build(dataType);
+                prepareResult = serverFileModifier.prepareLocalFiles();
+                break;
+        }
+        if (prepareResult != null) {
+            logger.log(LogCategory.ERROR, "Local files weren't prepared: " + handlingType);
+            return prepareResult;
+        }
+        val waitStartTime = System.nanoTime();
         try {
             val threadSleepDelay = ClientService.CLIENT_ID * LockFileMonitor.LAST_LOG_CHECK_DELAY_MULTIPLIER;
-            logger.log(LogCategory.DEBUG, "Waiting for: '" + threadSleepDelay + "'");
+            logger.log(LogCategory.DEBUG, () -> "Waiting for: '" + threadSleepDelay + "'");
             Thread.sleep(threadSleepDelay + ThreadLocalRandom.current().nextInt(5000, 10000));
             synchronized (LockFileMonitor.lockObject) {
                 LockFileMonitor.lockObject.wait();
@@ -44,6 +86,10 @@ public class FileHandler {
             logger.log(LogCategory.ERROR, "Error during waiting: " + e);
             return ErrorInfo.builder().errorType(ErrorType.LOCK_ERROR).build();
         }
+        val region = handlingType == HandlingType.DELETE_REGION ? regionToDelete : EventLog.NO_REGION;
+        EventLog.getEventLog().record(LogEvent.LOCK_WAITED, serverFileName, region,
+                System.nanoTime() - waitStartTime, EventLog.NO_VALUE);
+        val lockStartTime = System.nanoTime();
         val lastClientLock = LockFileMonitor.getLockMonitor().getLastClientLock(serverFileName);
         LockFile lock;
         if (lastClientLock == null) {
@@ -54,23 +100,17 @@ public class FileHandler {
         val lockFileController = new LockFileController();
         lockFileController.lockFile(lock);
         while (lockFileController.updateLock(lock)) {}
+        val lockedTime = System.nanoTime();
+        EventLog.getEventLog().record(LogEvent.SERVER_FILE_LOCKED, serverFileName, region,
+                lockedTime - lockStartTime, EventLog.NO_VALUE);
         ErrorInfo result = null;
         switch (handlingType) {
             case CREATE:
-                result = new ServerFileCreatorBuilder()
-                        .setServerFileName(serverFileName)
-                        .setLocalFile(localFile)
-                        .setDataFileType(dataFileType)
-                        .build(dataType)
-                        .createServerFile();
+                result = serverFileCreator.createServerFile();
                 break;
             case MODIFY:
-                result = new ServerFileModifierBuilder()
-                        .setServerFileName(serverFileName)
-                        .setLocalFile(localFile)
-                        .setDataFileType(dataFileType)
-                        .build(dataType)
-                        .modifyServerFile();
+            case MODIFY_WITH_LOCAL_FILES:
+                result = serverFileModifier.modifyServerFile();
                 break;
             case DELETE_REGION:
                 result = new ServerFileRegionDeleterBuilder()
@@ -81,6 +121,8 @@ public class FileHandler {
                 break;
         }
         lockFileController.deleteLock(lock);
+        EventLog.getEventLog().record(LogEvent.SERVER_FILE_RELEASED, serverFileName, region,
+                System.nanoTime() - lockedTime, EventLog.NO_VALUE);
         return result;
     }
 }
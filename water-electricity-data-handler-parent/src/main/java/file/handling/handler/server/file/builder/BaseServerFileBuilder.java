@@ -1,44 +1,266 @@
 package file.handling.handler.server.file.builder;
 
+import common.DataFileType;
+import common.DataType;
 import common.logger.LogCategory;
 import common.logger.Logger;
-import file.handling.model.BaseDataModel;
+import file.handling.model.BaseDataset;
+import file.handling.snapshot.ServerFileSnapshot;
+import file.handling.util.DataGroupsGetter;
+import file.handling.util.RegionSet;
+import file.handling.util.RegionsUtils;
+import file.handling.util.WorkbookUtils;
 import lombok.val;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import java.io.ByteArrayOutputStream;
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-abstract class BaseServerFileBuilder<DataModelType extends BaseDataModel> {
-    protected List<DataModelType> data;
+public abstract class BaseServerFileBuilder<DatasetType extends BaseDataset<?>> {
+    //шаблоны заголовков по классу построителя
+    private static final ConcurrentMap<Class<?>, ServerFileHeaderTemplate> headerTemplates =
+            new ConcurrentHashMap<>();
+    //записи формата книги .xls по классу построителя
+    private static final ConcurrentMap<Class<?>, XlsFileTemplate> xlsFileTemplates = new ConcurrentHashMap<>();
 
-    BaseServerFileBuilder(List<DataModelType> data) {
+    //строки .xlsx файла, которые хранятся в памяти при построении; остальные сбрасываются во временный файл
+    private static final int ROW_ACCESS_WINDOW = 100;
+    //первая строка листа после заголовка
+    private static final int FIRST_DATA_ROW = 5;
+
+    protected DatasetType data;
+    private DataFileType serverFileType;
+    //снимок последней построенной книги
+    private String headline;
+    private RegionSet regions;
+    private int[] writtenRows;
+    //строки набора, упорядоченные по группам, для текущего построения. Файл .xls проходит строки дважды,
+    //при подсчёте размеров и при записи, поэтому порядок считается один раз в начале построения
+    private int[] orderedRows;
+
+    BaseServerFileBuilder(DatasetType data, DataFileType serverFileType) {
         this.data = data;
+        this.serverFileType = serverFileType;
     }
 
-    public abstract ByteArrayOutputStream build();
-
-    //заполнение данных из массива в файл
-    protected abstract void addDataToFile(Sheet sheet, CellStyle cellStyle);
+    //файл строится до записи, поэтому ошибка построения не оставляет на сервере неполный файл.
+    //Книга .xlsx строится через SXSSF с постоянным расходом памяти. Файл .xls записывается напрямую
+    //записями BIFF8 без книги HSSF: при построении считаются размеры частей файла и таблица строк,
+    //строки листа пишутся в поток уже при записи
+    public ServerFileOutput buildServerFile() throws IOException {
+        val logger = Logger.getLogger(getClass().getName(), "buildServerFile");
+        logger.log(LogCategory.DEBUG, () -> "Creating server file: " + getDataType());
+        orderedRows = data.getRowsOrderedByGroup();
+        if (serverFileType == DataFileType.XSLX) {
+            return buildXlsxServerFile();
+        }
+        val fileTemplate = xlsFileTemplates.computeIfAbsent(getClass(),
+                builderClass -> XlsFileTemplate.create(this::createWorkbookFormat));
+        return new XlsServerFileWriter(fileTemplate, this);
+    }
 
-    ByteArrayOutputStream writeDataToStream(HSSFWorkbook workbook) {
+    public ByteArrayOutputStream build() {
         ByteArrayOutputStream serverFileDataStream = null;
-        val logger = Logger.getLogger(getClass().toString(), "writeDataToStream");
-        try {
+        val logger = Logger.getLogger(getClass().toString(), "build");
+        try (ServerFileOutput serverFile = buildServerFile()) {
             serverFileDataStream = new ByteArrayOutputStream();
-            workbook.write(serverFileDataStream);
-            serverFileDataStream.close();
-        } catch (Exception e) {
+            serverFile.write(serverFileDataStream);
+        } catch (IOException e) {
             logger.log(LogCategory.ERROR, "Error during writing server file on local machine: " + e);
-        } finally {
-            try {
-                workbook.close();
-            } catch (Exception e) {
-                logger.log(LogCategory.ERROR, "Error during writing server file on local machine: " + e);
-            }
         }
         return serverFileDataStream;
     }
+
+    //снимок содержит заголовок таблицы, регионы и строки данных последней построенной книги
+    //в порядке листа; до построения книги снимка нет
+    public ServerFileSnapshot getSnapshot() {
+        if (writtenRows == null) {
+            return null;
+        }
+        return new ServerFileSnapshot(headline, regions, data, writtenRows);
+    }
+
+    //число столбцов листа с данными
+    protected abstract int getColumnCount();
+
+    protected abstract DataType getDataType();
+
+    protected abstract String getSheetName();
+
+    //изменяемые значения заголовка (период, даты)
+    protected abstract String[] getHeaderValues();
+
+    //заполнение строки листа данными строки набора dataRow, number - номер строки внутри группы
+    protected abstract void writeDataRow(ServerFileSheetWriter sheetWriter, int dataRow, int number)
+            throws IOException;
+
+    //заполнение строк заголовка. Вызывается один раз для построения шаблона заголовка,
+    //headerValues - метки изменяемых значений заголовка
+    protected abstract void createHeader(Sheet sheet, CellStyle cellStyle, String[] headerValues);
+
+    //заголовок переносится в файл из шаблона, построенного при первом вызове
+    void writeHeader(ServerFileSheetWriter sheetWriter) throws IOException {
+        val headerValues = getHeaderValues();
+        val template = getHeaderTemplate();
+        template.write(sheetWriter, headerValues);
+        headline = template.getHeadline(headerValues);
+    }
+
+    //заполнение данных из массива в файл за один проход по строкам, упорядоченным по группам:
+    //перед первой строкой группы выводится её название. Объединения строк с названиями групп
+    //не пересекаются ни между собой, ни с заголовком, поэтому добавляются без проверки
+    void writeDataRows(ServerFileSheetWriter sheetWriter) throws IOException {
+        val logger = Logger.getLogger(getClass().getName(), "writeDataRows");
+        logger.log(LogCategory.DEBUG, () -> "Adding data to the server file: " + getDataType());
+        val columnCount = getColumnCount();
+        val regions = new RegionSet.Builder();
+        val rows = new int[orderedRows.length];
+        int rowCount = 0;
+        int group = 0;
+        int number = 0;
+        for (int i = 0; i < orderedRows.length; i++) {
+            val dataRow = orderedRows[i];
+            val rowGroup = data.getGroup(dataRow);
+            //строки без группы в файл не выводятся
+            if (rowGroup == 0) {
+                continue;
+            }
+            //номер строки листа включает номер группы, расположение строк совпадает с прежними файлами
+            if (rowGroup != group) {
+                val groupNameRowIndex = i + FIRST_DATA_ROW + group;
+                sheetWriter.startRow(groupNameRowIndex, ServerFileSheetWriter.DEFAULT_ROW_HEIGHT, 1);
+                sheetWriter.setCellValue(0, DataGroupsGetter.getGroup(rowGroup, getDataType()));
+                sheetWriter.addMergedRegion(
+                        new CellRangeAddress(groupNameRowIndex, groupNameRowIndex, 0, columnCount - 1));
+                group = rowGroup;
+                number = 1;
+            }
+            sheetWriter.startRow(i + FIRST_DATA_ROW + group, ServerFileSheetWriter.DEFAULT_ROW_HEIGHT, columnCount);
+            writeDataRow(sheetWriter, dataRow, number++);
+            regions.add(data.getRegion(dataRow));
+            rows[rowCount++] = dataRow;
+        }
+        this.regions = regions.build();
+        writtenRows = Arrays.copyOf(rows, rowCount);
+    }
+
+    //строка листа с названием первой группы, -1 если строк с группой нет. Строки заголовка с этим
+    //номером и дальше заменяются строками данных
+    int getFirstDataRowIndex() {
+        for (int i = 0; i < orderedRows.length; i++) {
+            if (data.getGroup(orderedRows[i]) != 0) {
+                return i + FIRST_DATA_ROW;
+            }
+        }
+        return -1;
+    }
+
+    //регионы последнего заполнения листа
+    RegionSet getRegions() {
+        return regions;
+    }
+
+    //лист с данными, формат заголовка и стиль ячеек листа, без строк
+    private CellStyle createWorkbookFormat(Workbook workbook) {
+        val sheet = workbook.createSheet(getSheetName());
+        val cellStyle = workbook.createCellStyle();
+        cellStyle.setAlignment(CellStyle.ALIGN_JUSTIFY);
+        cellStyle.setVerticalAlignment(CellStyle.ALIGN_CENTER);
+        getHeaderTemplate().writeSheetFormat(sheet);
+        return cellStyle;
+    }
+
+    private ServerFileHeaderTemplate getHeaderTemplate() {
+        return headerTemplates.computeIfAbsent(getClass(),
+                builderClass -> ServerFileHeaderTemplate.create(this::createHeader, getHeaderValues().length));
+    }
+
+    private ServerFileOutput buildXlsxServerFile() throws IOException {
+        val workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        try {
+            val cellStyle = createWorkbookFormat(workbook);
+            val sheetWriter = new WorkbookSheetWriter(workbook.getSheetAt(0), cellStyle);
+            writeHeader(sheetWriter);
+            writeDataRows(sheetWriter);
+            RegionsUtils.createRegionsPageInServerFile(workbook, regions);
+        } catch (IOException | RuntimeException e) {
+            WorkbookUtils.closeWorkbook(workbook);
+            throw e;
+        }
+        return new WorkbookServerFileOutput(workbook);
+    }
+
+    //запись строк в лист книги POI
+    private static class WorkbookSheetWriter implements ServerFileSheetWriter {
+        private final Sheet sheet;
+        private final CellStyle cellStyle;
+        private Row row;
+
+        WorkbookSheetWriter(Sheet sheet, CellStyle cellStyle) {
+            this.sheet = sheet;
+            this.cellStyle = cellStyle;
+        }
+
+        @Override
+        public void startRow(int rowIndex, short height, int columnCount) {
+            row = sheet.createRow(rowIndex);
+            if (height != DEFAULT_ROW_HEIGHT) {
+                row.setHeight(height);
+            }
+        }
+
+        @Override
+        public void setCellValue(int column, String value) {
+            createCell(column).setCellValue(value);
+        }
+
+        @Override
+        public void setCellValue(int column, double value) {
+            createCell(column).setCellValue(value);
+        }
+
+        @Override
+        public void setBlankCell(int column) {
+            createCell(column);
+        }
+
+        @Override
+        public void addMergedRegion(CellRangeAddress mergedRegion) {
+            sheet.addMergedRegionUnsafe(mergedRegion);
+        }
+
+        private Cell createCell(int column) {
+            val cell = row.createCell(column);
+            cell.setCellStyle(cellStyle);
+            return cell;
+        }
+    }
+
+    private static class WorkbookServerFileOutput implements ServerFileOutput {
+        private final Workbook workbook;
+
+        WorkbookServerFileOutput(Workbook workbook) {
+            this.workbook = workbook;
+        }
+
+        @Override
+        public void write(OutputStream outputStream) throws IOException {
+            workbook.write(outputStream);
+        }
+
+        @Override
+        public void close() throws IOException {
+            WorkbookUtils.closeWorkbook(workbook);
+        }
+    }
 }
@@ -1,41 +1,43 @@
 package file.handling.handler.server.file.builder;
 
+import common.DataFileType;
 import common.DataType;
-import common.logger.LogCategory;
-import common.logger.Logger;
-import file.handling.model.ElectricityDataModel;
-import file.handling.util.DataGroupsGetter;
-import file.handling.util.RegionsUtils;
+import file.handling.model.ElectricityDataset;
 import lombok.val;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
 
-import java.io.ByteArrayOutputStream;
-import java.util.Collections;
-import java.util.List;
+import java.io.IOException;
 
-import static file.handling.util.RegionsUtils.EMPTY_REGIONS;
+public class ElectricityServerFileBuilder extends BaseServerFileBuilder<ElectricityDataset> {
+    private static final int FIRST_DATE_HEADER_VALUE = 0;
+    private static final int SECOND_DATE_HEADER_VALUE = 1;
 
-public class ElectricityServerFileBuilder extends BaseServerFileBuilder<ElectricityDataModel> {
     private String firstDate;
     private String secondDate;
 
-    public ElectricityServerFileBuilder(List<ElectricityDataModel> data, String firstDate, String secondDate) {
-        super(data);
+    public ElectricityServerFileBuilder(ElectricityDataset data, String firstDate, String secondDate,
+                                        DataFileType serverFileType) {
+        super(data, serverFileType);
         this.firstDate = firstDate;
         this.secondDate = secondDate;
     }
 
     @Override
-    public ByteArrayOutputStream build() {
-        val logger = Logger.getLogger(getClass().getName(), "format");
-        logger.log(LogCategory.DEBUG, "Creating server electricity file");
-        val workbook = new HSSFWorkbook();
-        val sheet = workbook.createSheet("Электроэнергия");
+    protected String getSheetName() {
+        return "Электроэнергия";
+    }
+
+    @Override
+    protected String[] getHeaderValues() {
+        return new String[]{firstDate, secondDate};
+    }
+
+    @Override
+    protected void createHeader(Sheet sheet, CellStyle cellStyle, String[] headerValues) {
         sheet.setDefaultRowHeight((short) (20 * 15));
         sheet.setColumnWidth(0, 64 * 36);
         sheet.setColumnWidth(1, 199 * 36);
@@ -50,9 +52,6 @@ public class ElectricityServerFileBuilder extends BaseServerFileBuilder<Electric
         sheet.setColumnWidth(10, 121 * 36);
         sheet.setColumnWidth(11, 121 * 36);
         sheet.setColumnWidth(12, 113 * 36);
-        val cellStyle = workbook.createCellStyle();
-        cellStyle.setAlignment(CellStyle.ALIGN_JUSTIFY);
-        cellStyle.setVerticalAlignment(CellStyle.ALIGN_CENTER);
         //ширина строк
         for (int i = 0; i < 6; i++) {
             val row = sheet.createRow((short) i);
@@ -125,26 +124,26 @@ public class ElectricityServerFileBuilder extends BaseServerFileBuilder<Electric
                                         .setCellValue("Конструктивные и технические параметры многоквартирного дома");
                                 break;
                             case 6:
-                                cell.setCellValue(firstDate);
+                                cell.setCellValue(headerValues[FIRST_DATE_HEADER_VALUE]);
                                 break;
                             case 7:
-                                cell.setCellValue(secondDate);
+                                cell.setCellValue(headerValues[SECOND_DATE_HEADER_VALUE]);
                                 sheet.getRow(2).getCell(6).setCellValue(
                                         "Расход электрической энергии по показаниям коллективного (общедомового) прибора учета (кВт·ч)");
                                 break;
                             case 8:
-                                cell.setCellValue(firstDate);
+                                cell.setCellValue(headerValues[FIRST_DATE_HEADER_VALUE]);
                                 break;
                             case 9:
-                                cell.setCellValue(secondDate);
+                                cell.setCellValue(headerValues[SECOND_DATE_HEADER_VALUE]);
                                 sheet.getRow(2).getCell(8).setCellValue(
                                         "Суммарный расход электрической энергии в нежилых помещениях(кВт·ч)");
                                 break;
                             case 10:
-                                cell.setCellValue(firstDate);
+                                cell.setCellValue(headerValues[FIRST_DATE_HEADER_VALUE]);
                                 break;
                             case 11:
-                                cell.setCellValue(secondDate);
+                                cell.setCellValue(headerValues[SECOND_DATE_HEADER_VALUE]);
                                 sheet.getRow(2).getCell(10).setCellValue(
                                         "Расход электрической энергии по показаниям индивидуального прибора учета в l-м жилом помещении W1, (кВт·ч)");
                                 break;
@@ -157,83 +156,32 @@ public class ElectricityServerFileBuilder extends BaseServerFileBuilder<Electric
                 }
             }
         }
-        //добавление в файл данных
-        addDataToFile(sheet, cellStyle);
-        return writeDataToStream(workbook);
     }
 
     @Override
-    protected void addDataToFile(Sheet sheet, CellStyle cellStyle) {
-        val logger = Logger.getLogger(getClass().getName(), "addDataToFile");
-        logger.log(LogCategory.DEBUG, "Adding data to the server xls electricity file");
-        int group = 0;
-        int number = 0;
-        Collections.sort(data);
-        boolean[] regions = EMPTY_REGIONS;
-        for (int i = 0; i < data.size(); i++) {
-            val electricityDataModel = data.get(i);
-            if (electricityDataModel.getGroup() != 0) {
-                Row row = sheet.createRow((short) (i + 5 + group));
-                for (int j = 0; j < 13; j++) {
-                    Cell cell = row.createCell(j);
-                    cell.setCellStyle(cellStyle);
-                    if (electricityDataModel.getGroup() > group)//если верно - записать в файл название группы
-                    {
-                        sheet.addMergedRegion(new CellRangeAddress(i + 5 + group, i + 5 + group, 0, 12));
-                        group = electricityDataModel.getGroup();
-                        cell.setCellValue(DataGroupsGetter.getGroup(group, DataType.ELECTRICITY));
-                        number = 1;
-                        i--;
-                        break;
-                    }
-                    switch (j) {
-                        case 0:
-                            cell.setCellValue(number);
-                            number++;
-                            break;
-                        case 1:
-                            cell.setCellValue(electricityDataModel.getAddress());
-                            break;
-                        case 2:
-                            cell.setCellValue(electricityDataModel.getBiggestFloor());
-                            break;
-                        case 3:
-                            cell.setCellValue(electricityDataModel.getSmallestFloor());
-                            break;
-                        case 4:
-                            cell.setCellValue(electricityDataModel.getJoint());
-                            break;
-                        case 5:
-                            cell.setCellValue(electricityDataModel.getHasAccountingDevice());
-                            break;
-                        case 6:
-                            cell.setCellValue(electricityDataModel.getExpenseHouseFirstMonth());
-                            break;
-                        case 7:
-                            cell.setCellValue(electricityDataModel.getExpenseHouseSecondMonth());
-                            break;
-                        case 8:
-                            cell.setCellValue(electricityDataModel.getExpenseNotLivingFirstMonth());
-                            break;
-                        case 9:
-                            cell.setCellValue(electricityDataModel.getExpenseNotLivingSecondMonth());
-                            break;
-                        case 10:
-                            cell.setCellValue(electricityDataModel.getExpenseIndividFirstMonth());
-                            break;
-                        case 11:
-                            cell.setCellValue(electricityDataModel.getExpenseIndividSecondMonth());
-                            break;
-                        case 12:
-                            int region = electricityDataModel.getRegion();
-                            cell.setCellValue(region);
-                            regions[region - 1] = true;
-                            break;
-                    }
-                }
-            }
-        }
+    protected int getColumnCount() {
+        return 13;
+    }
 
-        RegionsUtils.createRegionsPageInServerFile(sheet.getWorkbook(), regions);
+    @Override
+    protected DataType getDataType() {
+        return DataType.ELECTRICITY;
+    }
+
+    @Override
+    protected void writeDataRow(ServerFileSheetWriter sheetWriter, int dataRow, int number) throws IOException {
+        sheetWriter.setCellValue(0, number);
+        sheetWriter.setCellValue(1, data.getAddress(dataRow));
+        sheetWriter.setCellValue(2, data.getBiggestFloor(dataRow));
+        sheetWriter.setCellValue(3, data.getSmallestFloor(dataRow));
+        sheetWriter.setCellValue(4, data.getJoint(dataRow));
+        sheetWriter.setCellValue(5, data.getHasAccountingDevice(dataRow));
+        sheetWriter.setCellValue(6, data.getExpenseHouseFirstMonth(dataRow));
+        sheetWriter.setCellValue(7, data.getExpenseHouseSecondMonth(dataRow));
+        sheetWriter.setCellValue(8, data.getExpenseNotLivingFirstMonth(dataRow));
+        sheetWriter.setCellValue(9, data.getExpenseNotLivingSecondMonth(dataRow));
+        sheetWriter.setCellValue(10, data.getExpenseIndividFirstMonth(dataRow));
+        sheetWriter.setCellValue(11, data.getExpenseIndividSecondMonth(dataRow));
+        sheetWriter.setCellValue(12, data.getRegion(dataRow));
     }
 }
@@ -0,0 +1,136 @@
+package file.handling.handler.server.file.builder;
+
+import lombok.val;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+//готовый заголовок серверного файла: итоговые значения ячеек, объединения, ширина столбцов и высота строк.
+//Создаётся один раз по коду заголовка построителя, в каждый новый файл переносится без повторной
+//перезаписи ячеек и проверки объединений; изменяются только ячейки с периодом или датами
+final class ServerFileHeaderTemplate {
+    //метка изменяемого значения при построении шаблона: символ \u0000 и номер значения
+    private static final char VARIABLE_MARK = '\u0000';
+
+    private final short defaultRowHeight;
+    private final int[] columnWidths;
+    private final short[] rowHeights;
+    private final int[] rowColumnCounts;
+    //ячейки по строкам и столбцам
+    private final List<TemplateCell> cells;
+    private final List<CellRangeAddress> mergedRegions;
+
+    private ServerFileHeaderTemplate(Sheet sheet) {
+        defaultRowHeight = sheet.getDefaultRowHeight();
+        rowHeights = new short[sheet.getLastRowNum() + 1];
+        rowColumnCounts = new int[rowHeights.length];
+        cells = new ArrayList<>();
+        int columnCount = 0;
+        for (int i = 0; i < rowHeights.length; i++) {
+            val row = sheet.getRow(i);
+            rowHeights[i] = row == null ? defaultRowHeight : row.getHeight();
+            if (row == null) {
+                continue;
+            }
+            rowColumnCounts[i] = Math.max(row.getLastCellNum(), 0);
+            columnCount = Math.max(columnCount, rowColumnCounts[i]);
+            for (val cell : row) {
+                cells.add(new TemplateCell(cell));
+            }
+        }
+        columnWidths = new int[columnCount];
+        for (int j = 0; j < columnCount; j++) {
+            columnWidths[j] = sheet.getColumnWidth(j);
+        }
+        mergedRegions = sheet.getMergedRegions();
+    }
+
+    //header заполняет лист заголовком; вместо изменяемых значений ему передаются метки
+    static ServerFileHeaderTemplate create(HeaderWriter header, int variableCount) {
+        val variables = new String[variableCount];
+        for (int i = 0; i < variableCount; i++) {
+            variables[i] = VARIABLE_MARK + String.valueOf(i);
+        }
+        val workbook = new HSSFWorkbook();
+        val sheet = workbook.createSheet();
+        header.write(sheet, workbook.createCellStyle(), variables);
+        return new ServerFileHeaderTemplate(sheet);
+    }
+
+    void writeSheetFormat(Sheet sheet) {
+        sheet.setDefaultRowHeight(defaultRowHeight);
+        for (int j = 0; j < columnWidths.length; j++) {
+            sheet.setColumnWidth(j, columnWidths[j]);
+        }
+    }
+
+    void write(ServerFileSheetWriter sheetWriter, String... variables) throws IOException {
+        int cellIndex = 0;
+        for (int i = 0; i < rowHeights.length; i++) {
+            sheetWriter.startRow(i, rowHeights[i], rowColumnCounts[i]);
+            for (; cellIndex < cells.size() && cells.get(cellIndex).rowIndex == i; cellIndex++) {
+                val templateCell = cells.get(cellIndex);
+                if (templateCell.variableIndex >= 0) {
+                    sheetWriter.setCellValue(templateCell.columnIndex, variables[templateCell.variableIndex]);
+                } else if (templateCell.stringValue != null) {
+                    sheetWriter.setCellValue(templateCell.columnIndex, templateCell.stringValue);
+                } else if (templateCell.numeric) {
+                    sheetWriter.setCellValue(templateCell.columnIndex, templateCell.numericValue);
+                } else {
+                    sheetWriter.setBlankCell(templateCell.columnIndex);
+                }
+            }
+        }
+        //объединения заголовка проверены при построении шаблона
+        for (val mergedRegion : mergedRegions) {
+            sheetWriter.addMergedRegion(mergedRegion);
+        }
+    }
+
+    //заголовок таблицы - текст первой ячейки, как его читают парсеры серверного файла
+    String getHeadline(String... variables) {
+        for (val templateCell : cells) {
+            if (templateCell.rowIndex == 0 && templateCell.columnIndex == 0) {
+                return templateCell.variableIndex >= 0
+                        ? variables[templateCell.variableIndex] : templateCell.stringValue;
+            }
+        }
+        return null;
+    }
+
+    interface HeaderWriter {
+        void write(Sheet sheet, CellStyle cellStyle, String[] variables);
+    }
+
+    private static class TemplateCell {
+        private final int rowIndex;
+        private final int columnIndex;
+        private String stringValue;
+        private int variableIndex = -1;
+        private boolean numeric;
+        private double numericValue;
+
+        TemplateCell(Cell cell) {
+            rowIndex = cell.getRowIndex();
+            columnIndex = cell.getColumnIndex();
+            if (cell.getCellTypeEnum() == CellType.NUMERIC) {
+                numeric = true;
+                numericValue = cell.getNumericCellValue();
+            } else if (cell.getCellTypeEnum() == CellType.STRING) {
+                val value = cell.getStringCellValue();
+                if (!value.isEmpty() && value.charAt(0) == VARIABLE_MARK) {
+                    variableIndex = Integer.parseInt(value.substring(1));
+                } else {
+                    stringValue = value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package file.handling.handler.server.file.builder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+//построенный серверный файл, готовый к записи в поток. После записи файл закрывается:
+//удаляются временные файлы книги .xlsx
+public interface ServerFileOutput extends Closeable {
+    void write(OutputStream outputStream) throws IOException;
+}
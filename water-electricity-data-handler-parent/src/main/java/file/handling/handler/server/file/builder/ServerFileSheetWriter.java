@@ -0,0 +1,25 @@
+package file.handling.handler.server.file.builder;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.IOException;
+
+//запись строк листа серверного файла: в книгу POI или напрямую в поток записей .xls.
+//Ячейки строки записываются после startRow по возрастанию столбцов
+public interface ServerFileSheetWriter {
+    //высота строки по умолчанию листа
+    short DEFAULT_ROW_HEIGHT = -1;
+
+    //columnCount - номер последнего столбца строки + 1
+    void startRow(int rowIndex, short height, int columnCount) throws IOException;
+
+    //для null записывается пустая ячейка
+    void setCellValue(int column, String value) throws IOException;
+
+    void setCellValue(int column, double value) throws IOException;
+
+    void setBlankCell(int column) throws IOException;
+
+    //объединения не проверяются на пересечение
+    void addMergedRegion(CellRangeAddress mergedRegion);
+}
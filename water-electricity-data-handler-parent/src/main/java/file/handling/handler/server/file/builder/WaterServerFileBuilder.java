@@ -1,39 +1,38 @@
 package file.handling.handler.server.file.builder;
 
+import common.DataFileType;
 import common.DataType;
-import common.logger.LogCategory;
-import common.logger.Logger;
-import file.handling.model.WaterDataModel;
-import file.handling.util.DataGroupsGetter;
-import file.handling.util.RegionsUtils;
-import lombok.val;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import file.handling.model.WaterDataset;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
 
-import java.io.ByteArrayOutputStream;
-import java.util.Collections;
-import java.util.List;
+import java.io.IOException;
 
-import static file.handling.util.RegionsUtils.EMPTY_REGIONS;
+public class WaterServerFileBuilder extends BaseServerFileBuilder<WaterDataset> {
+    private static final int PERIOD_HEADER_VALUE = 0;
 
-public class WaterServerFileBuilder extends BaseServerFileBuilder<WaterDataModel> {
     private String period;
 
-    public WaterServerFileBuilder(List<WaterDataModel> data, String period) {
-        super(data);
+    public WaterServerFileBuilder(WaterDataset data, String period, DataFileType serverFileType) {
+        super(data, serverFileType);
         this.period = period;
     }
 
     @Override
-    public ByteArrayOutputStream build() {
-        val logger = Logger.getLogger(getClass().getName(), "format");
-        logger.log(LogCategory.DEBUG, "Creating server water file");
-        val workbook = new HSSFWorkbook();
-        val sheet = workbook.createSheet("Водоснабжение");
+    protected String getSheetName() {
+        return "Водоснабжение";
+    }
+
+    @Override
+    protected String[] getHeaderValues() {
+        return new String[]{period};
+    }
+
+    @Override
+    protected void createHeader(Sheet sheet, CellStyle cellStyle, String[] headerValues) {
         sheet.setDefaultRowHeight((short) (20 * 15));
         sheet.setColumnWidth(0, 64 * 37);
         sheet.setColumnWidth(1, 178 * 37);
@@ -46,9 +45,6 @@ public class WaterServerFileBuilder extends BaseServerFileBuilder<WaterDataModel
         sheet.setColumnWidth(8, 113 * 37);
         sheet.setColumnWidth(9, 84 * 37);
         sheet.setColumnWidth(10, 64 * 37);
-        CellStyle cellStyle = workbook.createCellStyle();
-        cellStyle.setAlignment(CellStyle.ALIGN_JUSTIFY);
-        cellStyle.setVerticalAlignment(CellStyle.ALIGN_CENTER);
 
         //ширина строк
         for (int i = 0; i < 6; i++) {
@@ -131,7 +127,7 @@ public class WaterServerFileBuilder extends BaseServerFileBuilder<WaterDataModel
                                 cell.setCellValue("холодной");
                                 break;
                             case 9:
-                                sheet.getRow(2).getCell(8).setCellValue(period);
+                                sheet.getRow(2).getCell(8).setCellValue(headerValues[PERIOD_HEADER_VALUE]);
                                 cell.setCellValue("горячей");
                                 break;
                         }
@@ -143,79 +139,30 @@ public class WaterServerFileBuilder extends BaseServerFileBuilder<WaterDataModel
                 }
             }
         }
-        addDataToFile(sheet, cellStyle);
-        return writeDataToStream(workbook);
     }
 
     @Override
-    protected void addDataToFile(Sheet sheet, CellStyle cellStyle) {
-        Logger logger = Logger.getLogger(getClass().getName(), "addWaterDataToArray");
-        logger.log(LogCategory.DEBUG, "Adding data to the server xls water file");
+    protected int getColumnCount() {
+        return 11;
+    }
 
-        int group = 0;//номер группы
-        int number = 0;//проставление номера данных в одной из четырёх групп
-        Collections.sort(data);//отсортировать в порядке возрастания групп
-        boolean[] regions = EMPTY_REGIONS;
-        for (int i = 0; i < data.size(); i++) {
-            if (data.get(i).getGroup() != 0) {
-                Row row = sheet.createRow((short) (i + 5 + group));
-                //по столбцам
-                for (int j = 0; j < 11; j++) {
-                    val cell = row.createCell(j);
-                    cell.setCellStyle(cellStyle);
-                    val waterDataModel = data.get(i);
-                    if (waterDataModel.getGroup() > group)//если верно - записать в файл название группы
-                    {
-                        sheet.addMergedRegion(new CellRangeAddress(i + 5 + group, i + 5 + group, 0, 10));
-                        group = waterDataModel.getGroup();
-                        cell.setCellValue(DataGroupsGetter.getGroup(group, DataType.WATER));
-                        number = 1;
-                        i--;
-                        break;
-                    }
-                    switch (j)//запись данных
-                    {
-                        case 0:
-                            cell.setCellValue(number);
-                            number++;
-                            break;
-                        case 1:
-                            cell.setCellValue(waterDataModel.getAddress());
-                            break;
-                        case 2:
-                            cell.setCellValue(waterDataModel.getBiggestFloor());
-                            break;
-                        case 3:
-                            cell.setCellValue(waterDataModel.getSmallestFloor());
-                            break;
-                        case 4:
-                            cell.setCellValue(waterDataModel.getJoint());
-                            break;
-                        case 5:
-                            cell.setCellValue(waterDataModel.getPeople());
-                            break;
-                        case 6:
-                            cell.setCellValue(waterDataModel.getHasColdWaterAccountingDevice());
-                            break;
-                        case 7:
-                            cell.setCellValue(waterDataModel.getHasHotWaterAccountingDevice());
-                            break;
-                        case 8:
-                            cell.setCellValue(waterDataModel.getExpenseHouseCold());
-                            break;
-                        case 9:
-                            cell.setCellValue(waterDataModel.getExpenseHouseHot());
-                            break;
-                        case 10:
-                            int region = waterDataModel.getRegion();
-                            cell.setCellValue(region);
-                            regions[region - 1] = true;
-                            break;
-                    }
-                }
-            }
-        }
-        RegionsUtils.createRegionsPageInServerFile(sheet.getWorkbook(), regions);
+    @Override
+    protected DataType getDataType() {
+        return DataType.WATER;
+    }
 
+    @Override
+    protected void writeDataRow(ServerFileSheetWriter sheetWriter, int dataRow, int number) throws IOException {
+        sheetWriter.setCellValue(0, number);
+        sheetWriter.setCellValue(1, data.getAddress(dataRow));
+        sheetWriter.setCellValue(2, data.getBiggestFloor(dataRow));
+        sheetWriter.setCellValue(3, data.getSmallestFloor(dataRow));
+        sheetWriter.setCellValue(4, data.getJoint(dataRow));
+        sheetWriter.setCellValue(5, data.getPeople(dataRow));
+        sheetWriter.setCellValue(6, data.getHasColdWaterAccountingDevice(dataRow));
+        sheetWriter.setCellValue(7, data.getHasHotWaterAccountingDevice(dataRow));
+        sheetWriter.setCellValue(8, data.getExpenseHouseCold(dataRow));
+        sheetWriter.setCellValue(9, data.getExpenseHouseHot(dataRow));
+        sheetWriter.setCellValue(10, data.getRegion(dataRow));
     }
 }
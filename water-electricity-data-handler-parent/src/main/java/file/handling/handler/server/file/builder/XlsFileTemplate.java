@@ -0,0 +1,115 @@
+package file.handling.handler.server.file.builder;
+
+import file.handling.util.RegionsUtils;
+import lombok.val;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.IndexRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+//записи формата серверного файла .xls из книги HSSF без строк: шрифты, стили ячеек, имена и параметры
+//листов, ширина столбцов. Строится один раз для класса построителя; строки, ячейки, таблица строк (SST)
+//и объединения записываются в файл напрямую
+final class XlsFileTemplate {
+    static final int RECORD_HEADER_SIZE = 4;
+
+    //записи глобальной части книги без EOF
+    private final List<byte[]> globalRecords;
+    //записи листов до DIMENSIONS без INDEX и после DIMENSIONS без EOF
+    private final List<List<byte[]>> sheetHeadRecords = new ArrayList<>();
+    private final List<List<byte[]>> sheetTailRecords = new ArrayList<>();
+    private final short[] defaultRowHeights;
+    private final short cellStyleIndex;
+
+    private XlsFileTemplate(HSSFWorkbook workbook, CellStyle cellStyle) {
+        val substreams = splitSubstreams(workbook.getBytes());
+        globalRecords = substreams.get(0);
+        defaultRowHeights = new short[substreams.size() - 1];
+        for (int i = 1; i < substreams.size(); i++) {
+            List<byte[]> headRecords = new ArrayList<>();
+            List<byte[]> tailRecords = new ArrayList<>();
+            List<byte[]> records = headRecords;
+            for (val record : substreams.get(i)) {
+                val sid = getSid(record);
+                if (sid == DimensionsRecord.sid) {
+                    records = tailRecords;
+                } else if (sid != IndexRecord.sid) {
+                    records.add(record);
+                }
+            }
+            sheetHeadRecords.add(headRecords);
+            sheetTailRecords.add(tailRecords);
+            defaultRowHeights[i - 1] = workbook.getSheetAt(i - 1).getDefaultRowHeight();
+        }
+        cellStyleIndex = cellStyle.getIndex();
+    }
+
+    //workbookFormat создаёт лист с данными и возвращает стиль его ячеек; лист регионов добавляется после
+    static XlsFileTemplate create(Function<Workbook, CellStyle> workbookFormat) {
+        val workbook = new HSSFWorkbook();
+        val cellStyle = workbookFormat.apply(workbook);
+        workbook.createSheet(RegionsUtils.REGIONS_PAGE_NAME);
+        return new XlsFileTemplate(workbook, cellStyle);
+    }
+
+    static int getSid(byte[] record) {
+        return (record[0] & 0xFF) | (record[1] & 0xFF) << 8;
+    }
+
+    static int getSize(List<byte[]> records) {
+        int size = 0;
+        for (val record : records) {
+            size += record.length;
+        }
+        return size;
+    }
+
+    List<byte[]> getGlobalRecords() {
+        return globalRecords;
+    }
+
+    List<byte[]> getSheetHeadRecords(int sheetIndex) {
+        return sheetHeadRecords.get(sheetIndex);
+    }
+
+    List<byte[]> getSheetTailRecords(int sheetIndex) {
+        return sheetTailRecords.get(sheetIndex);
+    }
+
+    short getDefaultRowHeight(int sheetIndex) {
+        return defaultRowHeights[sheetIndex];
+    }
+
+    short getCellStyleIndex() {
+        return cellStyleIndex;
+    }
+
+    //записи глобальной части и листов, каждая часть от BOF до EOF; EOF не сохраняется
+    private static List<List<byte[]>> splitSubstreams(byte[] workbookStream) {
+        List<List<byte[]>> substreams = new ArrayList<>();
+        List<byte[]> records = null;
+        int position = 0;
+        while (position < workbookStream.length) {
+            val dataSize = (workbookStream[position + 2] & 0xFF) | (workbookStream[position + 3] & 0xFF) << 8;
+            val record = Arrays.copyOfRange(workbookStream, position, position + RECORD_HEADER_SIZE + dataSize);
+            position += record.length;
+            val sid = getSid(record);
+            if (sid == BOFRecord.sid) {
+                records = new ArrayList<>();
+                substreams.add(records);
+            }
+            if (sid != EOFRecord.sid) {
+                records.add(record);
+            }
+        }
+        return substreams;
+    }
+}
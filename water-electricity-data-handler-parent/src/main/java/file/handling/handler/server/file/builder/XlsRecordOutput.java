@@ -0,0 +1,83 @@
+package file.handling.handler.server.file.builder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+//запись записей BIFF8 в порядке little-endian. Без потока записи только считаются байты:
+//так вычисляются размеры частей файла перед записью
+final class XlsRecordOutput {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream outputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    private long flushedCount;
+
+    XlsRecordOutput(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    //число записанных байт от начала потока
+    long getPosition() {
+        return flushedCount + count;
+    }
+
+    void writeRecordHeader(int sid, int dataSize) throws IOException {
+        writeShort(sid);
+        writeShort(dataSize);
+    }
+
+    void writeByte(int value) throws IOException {
+        ensureCapacity(1);
+        buffer[count++] = (byte) value;
+    }
+
+    void writeShort(int value) throws IOException {
+        ensureCapacity(2);
+        buffer[count++] = (byte) value;
+        buffer[count++] = (byte) (value >>> 8);
+    }
+
+    void writeInt(int value) throws IOException {
+        ensureCapacity(4);
+        buffer[count++] = (byte) value;
+        buffer[count++] = (byte) (value >>> 8);
+        buffer[count++] = (byte) (value >>> 16);
+        buffer[count++] = (byte) (value >>> 24);
+    }
+
+    void writeDouble(double value) throws IOException {
+        final long bits = Double.doubleToLongBits(value);
+        writeInt((int) bits);
+        writeInt((int) (bits >>> 32));
+    }
+
+    void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length > BUFFER_SIZE - count) {
+            flush();
+        }
+        if (length > BUFFER_SIZE) {
+            if (outputStream != null) {
+                outputStream.write(bytes, offset, length);
+            }
+            flushedCount += length;
+            return;
+        }
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    void flush() throws IOException {
+        if (outputStream != null) {
+            outputStream.write(buffer, 0, count);
+        }
+        flushedCount += count;
+        count = 0;
+    }
+
+    private void ensureCapacity(int size) throws IOException {
+        if (count + size > BUFFER_SIZE) {
+            flush();
+        }
+    }
+}
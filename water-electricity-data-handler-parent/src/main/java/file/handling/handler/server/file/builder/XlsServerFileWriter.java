@@ -0,0 +1,473 @@
+package file.handling.handler.server.file.builder;
+
+import file.handling.util.RegionSet;
+import file.handling.util.RegionsUtils;
+import lombok.val;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.ContinueRecord;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtSSTRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MergeCellsRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.poifs.filesystem.OPOIFSFileSystem;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static file.handling.handler.server.file.builder.XlsFileTemplate.RECORD_HEADER_SIZE;
+
+//запись серверного файла .xls напрямую записями BIFF8, без объектной модели книги HSSF. Записи формата
+//берутся из шаблона, строки и ячейки листов пишутся в поток по мере заполнения листа построителем.
+//Размер потока книги контейнеру OLE2 нужен до записи, поэтому лист заполняется дважды: при построении
+//без записи считаются размеры частей книги и собирается таблица строк (SST), при записи пишутся записи.
+//Строки листа записываются каждая вместе со своими ячейками, без записей INDEX и DBCELL:
+//это необязательные индексы для быстрого поиска строк, при чтении файла они не нужны
+final class XlsServerFileWriter implements ServerFileSheetWriter, ServerFileOutput {
+    private static final String WORKBOOK_DOCUMENT_NAME = "Workbook";
+    private static final int DATA_SHEET = 0;
+    private static final int REGIONS_SHEET = 1;
+    private static final int MAX_ROW_COUNT = 65536;
+    //наибольший размер данных записи, длинная таблица строк продолжается записями CONTINUE
+    private static final int MAX_RECORD_DATA_SIZE = 8224;
+    private static final int MAX_MERGED_REGIONS_IN_RECORD = 1027;
+    //число символов строки и флаг кодировки не разделяются между записями
+    private static final int STRING_HEADER_SIZE = 3;
+    //индекс EXTSST: не больше MAX_BUCKETS групп строк, в группе не меньше MIN_STRINGS_IN_BUCKET строк
+    private static final int MIN_STRINGS_IN_BUCKET = 8;
+    private static final int MAX_BUCKETS = 128;
+    private static final int BOUND_SHEET_POSITION_OFFSET = RECORD_HEADER_SIZE;
+    private static final int ROW_OPTIONS = 0x0100;
+    private static final int ROW_CUSTOM_HEIGHT_OPTION = 0x0040;
+    //стиль ячеек по умолчанию книги HSSF
+    private static final short DEFAULT_CELL_STYLE_INDEX = 0x0F;
+
+    private final XlsFileTemplate fileTemplate;
+    private final BaseServerFileBuilder<?> builder;
+    //строки заголовка с этого номера заменяются строками данных, как при повторном создании строки в книге POI
+    private final int firstDataRowIndex;
+    //таблица строк в порядке первого появления строки на листе
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private int stringCellCount;
+    private final List<CellRangeAddress> mergedRegions = new ArrayList<>();
+    private int lastRowIndex = -1;
+    private int columnCount;
+    private RegionSet regions;
+    private int regionsRowCount;
+    private int stringsInBucket;
+    private int dataSheetRowsSize;
+    private int regionsSheetRowsSize;
+    private int sstSize;
+    private int[] sheetPositions;
+    private int workbookSize;
+
+    private XlsRecordOutput output;
+    //при построении ячейки не записываются, а считаются
+    private boolean measuring;
+    private int sheetIndex;
+    private int headerRowLimit;
+    private int rowIndex;
+    private boolean skippedRow;
+    private short defaultRowHeight;
+    private short cellStyleIndex;
+
+    XlsServerFileWriter(XlsFileTemplate fileTemplate, BaseServerFileBuilder<?> builder) throws IOException {
+        this.fileTemplate = fileTemplate;
+        this.builder = builder;
+        val firstDataRow = builder.getFirstDataRowIndex();
+        firstDataRowIndex = firstDataRow < 0 ? Integer.MAX_VALUE : firstDataRow;
+        measuring = true;
+        output = new XlsRecordOutput(null);
+        writeDataSheetRows();
+        dataSheetRowsSize = getWrittenSize();
+        regions = builder.getRegions();
+        regionsRowCount = RegionsUtils.getRegionsPageRowCount(regions);
+        writeRegionsSheetRows();
+        regionsSheetRowsSize = getWrittenSize();
+        stringsInBucket = Math.max(MIN_STRINGS_IN_BUCKET, (strings.size() + MAX_BUCKETS - 1) / MAX_BUCKETS);
+        writeSst(new int[getBucketCount()], new short[getBucketCount()]);
+        sstSize = getWrittenSize();
+        measuring = false;
+
+        int globalsSize = RECORD_HEADER_SIZE;
+        for (val record : fileTemplate.getGlobalRecords()) {
+            switch (XlsFileTemplate.getSid(record)) {
+                case SSTRecord.sid:
+                    globalsSize += sstSize;
+                    break;
+                case ExtSSTRecord.sid:
+                    globalsSize += getExtSstSize();
+                    break;
+                default:
+                    globalsSize += record.length;
+            }
+        }
+        val dataSheetSize = getSheetSize(DATA_SHEET, dataSheetRowsSize + getMergedRegionsSize());
+        sheetPositions = new int[]{globalsSize, globalsSize + dataSheetSize};
+        workbookSize = sheetPositions[REGIONS_SHEET] + getSheetSize(REGIONS_SHEET, regionsSheetRowsSize);
+    }
+
+    //поток книги записывается в контейнер OLE2 по частям, без копии в памяти
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        val fileSystem = new OPOIFSFileSystem();
+        fileSystem.createDocument(WORKBOOK_DOCUMENT_NAME, workbookSize, event -> {
+            try {
+                output = new XlsRecordOutput(event.getStream());
+                writeWorkbook();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            fileSystem.writeFilesystem(outputStream);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    //книга не держит открытых ресурсов
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void startRow(int rowIndex, short height, int columnCount) throws IOException {
+        skippedRow = rowIndex >= headerRowLimit;
+        if (skippedRow) {
+            return;
+        }
+        if (rowIndex >= MAX_ROW_COUNT) {
+            throw new IllegalArgumentException(
+                    "Invalid row number (" + rowIndex + ") outside allowable range (0.." + (MAX_ROW_COUNT - 1) + ")");
+        }
+        this.rowIndex = rowIndex;
+        if (measuring && sheetIndex == DATA_SHEET) {
+            lastRowIndex = Math.max(lastRowIndex, rowIndex);
+            this.columnCount = Math.max(this.columnCount, columnCount);
+        }
+        output.writeRecordHeader(RowRecord.sid, RowRecord.ENCODED_SIZE - RECORD_HEADER_SIZE);
+        output.writeShort(rowIndex);
+        output.writeShort(0);
+        output.writeShort(columnCount);
+        output.writeShort(height == DEFAULT_ROW_HEIGHT ? defaultRowHeight : height);
+        output.writeInt(0);
+        output.writeShort(height == DEFAULT_ROW_HEIGHT ? ROW_OPTIONS : ROW_OPTIONS | ROW_CUSTOM_HEIGHT_OPTION);
+        output.writeShort(DEFAULT_CELL_STYLE_INDEX);
+    }
+
+    @Override
+    public void setCellValue(int column, String value) throws IOException {
+        if (value == null) {
+            setBlankCell(column);
+            return;
+        }
+        if (skippedRow) {
+            return;
+        }
+        writeCellHeader(LabelSSTRecord.sid, 10, column);
+        output.writeInt(getStringIndex(value));
+    }
+
+    //как в книге HSSF, вместо NaN и бесконечности записываются ошибки #NUM! и #DIV/0!
+    @Override
+    public void setCellValue(int column, double value) throws IOException {
+        if (skippedRow) {
+            return;
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeCellHeader(BoolErrRecord.sid, 8, column);
+            output.writeByte(Double.isNaN(value) ? FormulaError.NUM.getCode() : FormulaError.DIV0.getCode());
+            output.writeByte(1);
+            return;
+        }
+        writeCellHeader(NumberRecord.sid, 14, column);
+        output.writeDouble(value);
+    }
+
+    @Override
+    public void setBlankCell(int column) throws IOException {
+        if (skippedRow) {
+            return;
+        }
+        writeCellHeader(BlankRecord.sid, 6, column);
+    }
+
+    @Override
+    public void addMergedRegion(CellRangeAddress mergedRegion) {
+        if (measuring) {
+            mergedRegions.add(mergedRegion);
+        }
+    }
+
+    private void writeWorkbook() throws IOException {
+        int boundSheetIndex = 0;
+        for (val record : fileTemplate.getGlobalRecords()) {
+            switch (XlsFileTemplate.getSid(record)) {
+                case BoundSheetRecord.sid:
+                    output.write(record, 0, BOUND_SHEET_POSITION_OFFSET);
+                    output.writeInt(sheetPositions[boundSheetIndex++]);
+                    output.write(record, BOUND_SHEET_POSITION_OFFSET + 4,
+                            record.length - BOUND_SHEET_POSITION_OFFSET - 4);
+                    break;
+                case SSTRecord.sid:
+                    val bucketPositions = new int[getBucketCount()];
+                    val bucketOffsets = new short[getBucketCount()];
+                    writeSst(bucketPositions, bucketOffsets);
+                    writeExtSst(bucketPositions, bucketOffsets);
+                    break;
+                case ExtSSTRecord.sid:
+                    break;
+                default:
+                    output.write(record, 0, record.length);
+            }
+        }
+        writeEof();
+
+        writeRecords(fileTemplate.getSheetHeadRecords(DATA_SHEET));
+        writeDimensions(lastRowIndex, columnCount);
+        writeDataSheetRows();
+        writeMergedRegions();
+        writeRecords(fileTemplate.getSheetTailRecords(DATA_SHEET));
+        writeEof();
+
+        writeRecords(fileTemplate.getSheetHeadRecords(REGIONS_SHEET));
+        writeDimensions(regionsRowCount - 1, RegionsUtils.REGIONS_IN_ROW);
+        writeRegionsSheetRows();
+        writeRecords(fileTemplate.getSheetTailRecords(REGIONS_SHEET));
+        writeEof();
+        output.flush();
+        if (output.getPosition() != workbookSize) {
+            throw new IllegalStateException(
+                    "Workbook size " + output.getPosition() + " doesn't match counted size " + workbookSize);
+        }
+    }
+
+    private void writeDataSheetRows() throws IOException {
+        sheetIndex = DATA_SHEET;
+        defaultRowHeight = fileTemplate.getDefaultRowHeight(DATA_SHEET);
+        cellStyleIndex = fileTemplate.getCellStyleIndex();
+        headerRowLimit = firstDataRowIndex;
+        builder.writeHeader(this);
+        headerRowLimit = Integer.MAX_VALUE;
+        builder.writeDataRows(this);
+    }
+
+    //пары строк с номерами регионов и флагами их наличия в файле, как на листе регионов книги POI
+    private void writeRegionsSheetRows() throws IOException {
+        sheetIndex = REGIONS_SHEET;
+        defaultRowHeight = fileTemplate.getDefaultRowHeight(REGIONS_SHEET);
+        cellStyleIndex = DEFAULT_CELL_STYLE_INDEX;
+        for (int i = 0; i < regionsRowCount; i++) {
+            startRow(i, DEFAULT_ROW_HEIGHT, RegionsUtils.REGIONS_IN_ROW);
+            for (int j = 0; j < RegionsUtils.REGIONS_IN_ROW; j++) {
+                if (i % 2 == 0) {
+                    setCellValue(j, RegionsUtils.getRegionNumber(i, j));
+                } else {
+                    writeCellHeader(BoolErrRecord.sid, 8, j);
+                    output.writeByte(regions.contains(RegionsUtils.getRegion(i, j)) ? 1 : 0);
+                    output.writeByte(0);
+                }
+            }
+        }
+    }
+
+    private void writeCellHeader(int sid, int dataSize, int column) throws IOException {
+        output.writeRecordHeader(sid, dataSize);
+        output.writeShort(rowIndex);
+        output.writeShort(column);
+        output.writeShort(cellStyleIndex);
+    }
+
+    private int getStringIndex(String value) {
+        if (measuring) {
+            stringCellCount++;
+            return stringIndexes.computeIfAbsent(value, string -> {
+                strings.add(string);
+                return strings.size() - 1;
+            });
+        }
+        return stringIndexes.get(value);
+    }
+
+    //таблица строк: число ячеек со строками, число строк, строки. Строка, не поместившаяся в запись,
+    //продолжается в записи CONTINUE, которая начинается с флага кодировки продолжения.
+    //Строки с символами только из первых 256 кодов записываются по байту на символ
+    private void writeSst(int[] bucketPositions, short[] bucketOffsets) throws IOException {
+        val record = new ContinuedRecord(SSTRecord.sid);
+        record.writeInt(stringCellCount);
+        record.writeInt(strings.size());
+        for (int i = 0; i < strings.size(); i++) {
+            val string = strings.get(i);
+            val compressed = isCompressed(string);
+            val charSize = compressed ? 1 : 2;
+            if (record.getFreeSpace() < STRING_HEADER_SIZE + charSize) {
+                record.writeContinue();
+            }
+            if (i % stringsInBucket == 0) {
+                bucketPositions[i / stringsInBucket] = (int) output.getPosition() + record.getRecordSize();
+                bucketOffsets[i / stringsInBucket] = (short) record.getRecordSize();
+            }
+            record.writeShort(string.length());
+            record.writeByte(compressed ? 0 : 1);
+            int charIndex = 0;
+            while (true) {
+                val end = charIndex + Math.min(string.length() - charIndex, record.getFreeSpace() / charSize);
+                for (; charIndex < end; charIndex++) {
+                    if (compressed) {
+                        record.writeByte(string.charAt(charIndex));
+                    } else {
+                        record.writeShort(string.charAt(charIndex));
+                    }
+                }
+                if (charIndex == string.length()) {
+                    break;
+                }
+                record.writeContinue();
+                record.writeByte(compressed ? 0 : 1);
+            }
+        }
+        record.flush();
+    }
+
+    private void writeExtSst(int[] bucketPositions, short[] bucketOffsets) throws IOException {
+        output.writeRecordHeader(ExtSSTRecord.sid, getExtSstSize() - RECORD_HEADER_SIZE);
+        output.writeShort(stringsInBucket);
+        for (int i = 0; i < bucketPositions.length; i++) {
+            output.writeInt(bucketPositions[i]);
+            output.writeShort(bucketOffsets[i]);
+            output.writeShort(0);
+        }
+    }
+
+    private void writeDimensions(int lastRowIndex, int columnCount) throws IOException {
+        output.writeRecordHeader(DimensionsRecord.sid, 14);
+        output.writeInt(0);
+        output.writeInt(lastRowIndex + 1);
+        output.writeShort(0);
+        output.writeShort(columnCount);
+        output.writeShort(0);
+    }
+
+    private void writeMergedRegions() throws IOException {
+        for (int i = 0; i < mergedRegions.size(); i += MAX_MERGED_REGIONS_IN_RECORD) {
+            val count = Math.min(MAX_MERGED_REGIONS_IN_RECORD, mergedRegions.size() - i);
+            output.writeRecordHeader(MergeCellsRecord.sid, 2 + count * CellRangeAddress.ENCODED_SIZE);
+            output.writeShort(count);
+            for (int j = i; j < i + count; j++) {
+                val mergedRegion = mergedRegions.get(j);
+                output.writeShort(mergedRegion.getFirstRow());
+                output.writeShort(mergedRegion.getLastRow());
+                output.writeShort(mergedRegion.getFirstColumn());
+                output.writeShort(mergedRegion.getLastColumn());
+            }
+        }
+    }
+
+    private void writeRecords(List<byte[]> records) throws IOException {
+        for (val record : records) {
+            output.write(record, 0, record.length);
+        }
+    }
+
+    private void writeEof() throws IOException {
+        output.writeRecordHeader(EOFRecord.sid, 0);
+    }
+
+    //размер записанного при построении с последнего вызова
+    private int getWrittenSize() throws IOException {
+        output.flush();
+        val size = (int) output.getPosition();
+        output = new XlsRecordOutput(null);
+        return size;
+    }
+
+    private int getBucketCount() {
+        return (strings.size() + stringsInBucket - 1) / stringsInBucket;
+    }
+
+    private int getExtSstSize() {
+        return RECORD_HEADER_SIZE + 2 + getBucketCount() * 8;
+    }
+
+    private int getMergedRegionsSize() {
+        val recordCount = (mergedRegions.size() + MAX_MERGED_REGIONS_IN_RECORD - 1) / MAX_MERGED_REGIONS_IN_RECORD;
+        return recordCount * (RECORD_HEADER_SIZE + 2) + mergedRegions.size() * CellRangeAddress.ENCODED_SIZE;
+    }
+
+    //BOF и записи формата, DIMENSIONS, строки, записи формата после строк, EOF
+    private int getSheetSize(int sheetIndex, int rowsSize) {
+        return XlsFileTemplate.getSize(fileTemplate.getSheetHeadRecords(sheetIndex))
+                + RECORD_HEADER_SIZE + 14
+                + rowsSize
+                + XlsFileTemplate.getSize(fileTemplate.getSheetTailRecords(sheetIndex))
+                + RECORD_HEADER_SIZE;
+    }
+
+    private static boolean isCompressed(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //запись, данные которой продолжаются записями CONTINUE по MAX_RECORD_DATA_SIZE байт
+    private class ContinuedRecord {
+        private final byte[] data = new byte[MAX_RECORD_DATA_SIZE];
+        private int sid;
+        private int size;
+
+        ContinuedRecord(int sid) {
+            this.sid = sid;
+        }
+
+        int getFreeSpace() {
+            return MAX_RECORD_DATA_SIZE - size;
+        }
+
+        //смещение от начала текущей записи вместе с её заголовком
+        int getRecordSize() {
+            return RECORD_HEADER_SIZE + size;
+        }
+
+        void writeByte(int value) {
+            data[size++] = (byte) value;
+        }
+
+        void writeShort(int value) {
+            data[size++] = (byte) value;
+            data[size++] = (byte) (value >>> 8);
+        }
+
+        void writeInt(int value) {
+            writeShort(value);
+            writeShort(value >>> 16);
+        }
+
+        void writeContinue() throws IOException {
+            flush();
+            sid = ContinueRecord.sid;
+        }
+
+        void flush() throws IOException {
+            output.writeRecordHeader(sid, size);
+            output.write(data, 0, size);
+            size = 0;
+        }
+    }
+}
@@ -4,11 +4,13 @@ import common.DataFileType;
 import common.error.info.ErrorInfo;
 import common.error.info.ErrorType;
 import common.error.info.FTPErrorInfo;
+import common.error.info.WorkbookErrorInfo;
+import file.handling.parser.LocalFileParseResult;
+import file.handling.snapshot.ServerFileSnapshot;
 import lombok.Data;
 import lombok.val;
 import server.connector.ftp.FTPConnector;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 
@@ -18,7 +20,48 @@ public abstract class BaseServerFileCreator {
     protected File localFile;
     protected DataFileType dataFileType;
 
-    public abstract ErrorInfo createServerFile();
+    //новый серверный файл, построенный до блокировки
+    protected ByteArrayOutputStream serverFileData;
+    protected ServerFileSnapshot serverFileSnapshot;
+    private boolean prepared;
+
+    //разбор локального файла и построение серверного файла
+    protected abstract ErrorInfo buildServerFile();
+
+    //новый серверный файл строится только из локального, поэтому вся работа
+    //кроме выгрузки выполняется до блокировки
+    public ErrorInfo prepareServerFile() {
+        val errorInfo = buildServerFile();
+        prepared = errorInfo == null;
+        return errorInfo;
+    }
+
+    public ErrorInfo createServerFile() {
+        if (!prepared) {
+            val errorInfo = prepareServerFile();
+            if (errorInfo != null) {
+                return errorInfo;
+            }
+        }
+        val errorInfo = writeServerFileDataToServer(serverFileData);
+        //снимок выгружается после серверного файла, так как хранит его версию
+        if (errorInfo == null && serverFileSnapshot != null) {
+            serverFileSnapshot.send(serverFileName);
+        }
+        return errorInfo;
+    }
+
+    //формат серверного файла задаётся расширением его имени
+    protected DataFileType getServerFileType() {
+        return DataFileType.fromFileName(serverFileName);
+    }
+
+    ErrorInfo createErrorInfo(LocalFileParseResult parseResult) {
+        return ErrorInfo.builder()
+                .errorType(ErrorType.WORKBOOK_LOCAL_FILE_READING_ERROR)
+                .workbookErrorInfo(new WorkbookErrorInfo(parseResult.getErrorCellCode(), parseResult.getCellErrors()))
+                .build();
+    }
 
     ErrorInfo writeServerFileDataToServer(ByteArrayOutputStream serverFileData) {
         if (serverFileData == null) {
@@ -26,9 +69,9 @@ public abstract class BaseServerFileCreator {
                     .errorType(ErrorType.WORKBOOK_SERVER_FILE_WRITING_ERROR)
                     .build();
         }
-        val inputStream = new ByteArrayInputStream(serverFileData.toByteArray());
+        //данные выгружаются из буфера потока без копирования
         val ftpConnector = new FTPConnector();
-        if (!ftpConnector.sendFile(inputStream, serverFileName)) {
+        if (!ftpConnector.sendFile(serverFileName, serverFileData::writeTo)) {
             return ErrorInfo.builder()
                     .errorType(ErrorType.FTP_ERROR)
                     .ftpErrorInfo(new FTPErrorInfo(ftpConnector.getFtpErrorCode()))
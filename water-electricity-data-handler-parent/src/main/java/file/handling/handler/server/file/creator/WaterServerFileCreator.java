@@ -1,27 +1,24 @@
 package file.handling.handler.server.file.creator;
 
 import common.error.info.ErrorInfo;
-import common.error.info.ErrorType;
-import common.error.info.WorkbookErrorInfo;
 import file.handling.handler.server.file.builder.WaterServerFileBuilder;
 import file.handling.parser.WaterDataParser;
 import lombok.val;
 
 class WaterServerFileCreator extends BaseServerFileCreator {
     @Override
-    public ErrorInfo createServerFile() {
+    protected ErrorInfo buildServerFile() {
         val parser = new WaterDataParser();
+        parser.setCollectingCellErrors(true);
         val parseResult = parser.parseClientLocalFile(localFile, dataFileType);
         if (!parseResult.isParsedSuccessfully()) {
-            return ErrorInfo.builder()
-                    .errorType(ErrorType.WORKBOOK_LOCAL_FILE_READING_ERROR)
-                    .workbookErrorInfo(new WorkbookErrorInfo(parseResult.getErrorCellCode()))
-                    .build();
+            return createErrorInfo(parseResult);
         }
         val waterData = parser.getData();
         val period = parser.getPeriod();
-        val waterServerFileFormatter = new WaterServerFileBuilder(waterData, period);
-        val serverFileData = waterServerFileFormatter.build();
-        return writeServerFileDataToServer(serverFileData);
+        val waterServerFileFormatter = new WaterServerFileBuilder(waterData, period, getServerFileType());
+        serverFileData = waterServerFileFormatter.build();
+        serverFileSnapshot = waterServerFileFormatter.getSnapshot();
+        return null;
     }
 }
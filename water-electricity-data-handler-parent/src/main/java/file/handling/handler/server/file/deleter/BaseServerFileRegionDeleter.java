@@ -1,16 +1,18 @@
 package file.handling.handler.server.file.deleter;
 
+import common.DataFileType;
 import common.error.info.ErrorInfo;
 import common.error.info.ErrorType;
 import common.error.info.FTPErrorInfo;
 import common.error.info.WorkbookErrorInfo;
+import file.handling.handler.server.file.builder.BaseServerFileBuilder;
+import file.handling.handler.server.file.builder.ServerFileOutput;
 import file.handling.parser.ServerFileParseResult;
 import lombok.Data;
 import lombok.val;
 import server.connector.ftp.FTPConnector;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 
 @Data
 public abstract class BaseServerFileRegionDeleter {
@@ -19,6 +21,11 @@ public abstract class BaseServerFileRegionDeleter {
 
     public abstract ErrorInfo deleteRegionFromServerFile();
 
+    //формат серверного файла задаётся расширением его имени
+    protected DataFileType getServerFileType() {
+        return DataFileType.fromFileName(serverFileName);
+    }
+
     protected ErrorInfo createErrorInfo(ServerFileParseResult serverFileParseResult) {
         if (serverFileParseResult.isClientHeadlineNotEqualsToServer()) {
             return ErrorInfo.builder()
@@ -36,20 +43,25 @@ public abstract class BaseServerFileRegionDeleter {
                 .build();
     }
 
-    protected ErrorInfo writeServerFileDataToServer(ByteArrayOutputStream serverFileData) {
-        if (serverFileData == null) {
+    //файл строится до соединения с сервером и записывается сразу в соединение: запись идёт одновременно
+    //с выгрузкой, полная копия файла в памяти не создаётся. После файла выгружается его снимок
+    protected ErrorInfo writeServerFileDataToServer(BaseServerFileBuilder<?> serverFileBuilder) {
+        val ftpConnector = new FTPConnector();
+        boolean serverFileSent;
+        try (ServerFileOutput serverFile = serverFileBuilder.buildServerFile()) {
+            serverFileSent = ftpConnector.sendFile(serverFileName, serverFile::write);
+        } catch (IOException e) {
             return ErrorInfo.builder()
                     .errorType(ErrorType.WORKBOOK_SERVER_FILE_WRITING_ERROR)
                     .build();
         }
-        val inputStream = new ByteArrayInputStream(serverFileData.toByteArray());
-        val ftpConnector = new FTPConnector();
-        if (!ftpConnector.sendFile(inputStream, serverFileName)) {
+        if (!serverFileSent) {
             return ErrorInfo.builder()
                     .errorType(ErrorType.FTP_ERROR)
                     .ftpErrorInfo(new FTPErrorInfo(ftpConnector.getFtpErrorCode()))
                     .build();
         }
+        serverFileBuilder.getSnapshot().send(serverFileName);
         return null;
     }
 }
@@ -17,10 +17,10 @@ public class ElectricityServerFileRegionDeleter extends BaseServerFileRegionDele
             return createErrorInfo(serverFileParseResult);
         }
         val serverFileData = parser.getData();
-        serverFileData.removeIf(model -> model.getRegion() == regionToDelete);
+        serverFileData.removeRegion(regionToDelete);
         val waterServerFileFormatter =
-                new ElectricityServerFileBuilder(serverFileData, parser.getFirstDate(), parser.getSecondDate());
-        val serverFileDataStream = waterServerFileFormatter.build();
-        return writeServerFileDataToServer(serverFileDataStream);
+                new ElectricityServerFileBuilder(serverFileData, parser.getFirstDate(), parser.getSecondDate(),
+                        getServerFileType());
+        return writeServerFileDataToServer(waterServerFileFormatter);
     }
 }
@@ -16,10 +16,9 @@ public class WaterServerFileRegionDeleter extends BaseServerFileRegionDeleter {
             return createErrorInfo(serverFileParseResult);
         }
         val serverFileData = parser.getData();
-        serverFileData.removeIf(model -> model.getRegion() == regionToDelete);
+        serverFileData.removeRegion(regionToDelete);
         val waterServerFileFormatter =
-                new WaterServerFileBuilder(serverFileData, parser.getPeriod());
-        val serverFileDataStream = waterServerFileFormatter.build();
-        return writeServerFileDataToServer(serverFileDataStream);
+                new WaterServerFileBuilder(serverFileData, parser.getPeriod(), getServerFileType());
+        return writeServerFileDataToServer(waterServerFileFormatter);
     }
 }
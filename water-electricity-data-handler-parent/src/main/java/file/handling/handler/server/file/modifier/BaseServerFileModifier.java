@@ -5,22 +5,118 @@ import common.error.info.ErrorInfo;
 import common.error.info.ErrorType;
 import common.error.info.FTPErrorInfo;
 import common.error.info.WorkbookErrorInfo;
+import file.handling.handler.server.file.builder.BaseServerFileBuilder;
+import file.handling.handler.server.file.builder.ServerFileOutput;
+import common.logger.LogCategory;
+import common.logger.Logger;
+import file.handling.parser.BaseParser;
+import file.handling.parser.LocalFileParseResult;
 import file.handling.parser.ServerFileParseResult;
+import file.handling.util.RegionSet;
+import file.handling.util.RegionsUtils;
 import lombok.Data;
 import lombok.val;
 import server.connector.ftp.FTPConnector;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Data
-public abstract class BaseServerFileModifier {
+public abstract class BaseServerFileModifier<ParserType extends BaseParser<?, ?>> {
     protected String serverFileName;
     protected File localFile;
+    protected List<File> localFiles;
     protected DataFileType dataFileType;
 
-    public abstract ErrorInfo modifyServerFile();
+    //локальные файлы, разобранные до блокировки серверного файла, в порядке localFiles
+    protected List<ParserType> localFileParsers;
+    private String localFileHeadline;
+    private RegionSet localFileRegions;
+
+    protected abstract ParserType createParser();
+
+    //добавление данных локальных файлов к данным серверного файла, построитель нового серверного файла
+    protected abstract BaseServerFileBuilder<?> createServerFileBuilder(ParserType serverFileParser);
+
+    //разбор и проверка локальных файлов не требуют серверного файла и выполняются до его блокировки.
+    //Если задан пакет localFiles, в серверный файл добавляются все файлы пакета, иначе только localFile
+    public ErrorInfo prepareLocalFiles() {
+        val logger = Logger.getLogger(getClass().toString(), "prepareLocalFiles");
+        val modifiedLocalFiles = localFiles != null ? localFiles : Collections.singletonList(localFile);
+        if (modifiedLocalFiles.isEmpty()) {
+            return ErrorInfo.builder()
+                    .errorType(ErrorType.WORKBOOK_LOCAL_FILE_READING_ERROR)
+                    .build();
+        }
+        val parsers = new ArrayList<ParserType>();
+        for (File ignored : modifiedLocalFiles) {
+            val parser = createParser();
+            //о всех ошибочных ячейках локального файла сообщается сразу
+            parser.setCollectingCellErrors(true);
+            parsers.add(parser);
+        }
+        val localFilesErrorInfo = parseLocalFiles(modifiedLocalFiles, parsers);
+        if (localFilesErrorInfo != null) {
+            return localFilesErrorInfo;
+        }
+        //все файлы пакета должны иметь один заголовок и разные регионы
+        val headline = parsers.get(0).getLocalFileHeadline();
+        val regions = new RegionSet.Builder();
+        for (int i = 0; i < modifiedLocalFiles.size(); i++) {
+            if (headline == null || !headline.equals(parsers.get(i).getLocalFileHeadline())) {
+                logger.log(LogCategory.ERROR, "Headline of file '" + modifiedLocalFiles.get(i) + "' differs");
+                return ErrorInfo.builder()
+                        .errorType(ErrorType.SERVER_FILE_AND_LOCAL_FILE_STRUCTURE_NOT_EQUALS)
+                        .build();
+            }
+            val region = RegionsUtils.getFileRegion(modifiedLocalFiles.get(i), getLocalFileType(modifiedLocalFiles.get(i)));
+            if (regions.contains(region)) {
+                logger.log(LogCategory.ERROR, "Region of file '" + modifiedLocalFiles.get(i) + "' is repeated");
+                return ErrorInfo.builder()
+                        .errorType(ErrorType.CLIENT_REGION_ALREADY_IN_SERVER_FILE)
+                        .build();
+            }
+            regions.add(region);
+        }
+        localFileParsers = parsers;
+        localFileHeadline = headline;
+        localFileRegions = regions.build();
+        return null;
+    }
+
+    //при заблокированном серверном файле выполняются только загрузка, проверка, слияние и выгрузка
+    public ErrorInfo modifyServerFile() {
+        if (localFileParsers == null) {
+            val localFilesErrorInfo = prepareLocalFiles();
+            if (localFilesErrorInfo != null) {
+                return localFilesErrorInfo;
+            }
+        }
+        val serverFileParser = createParser();
+        val serverFileParseResult = serverFileParser.parseServerFileWithHeadlinesCheck(
+                serverFileName, localFileHeadline, localFileRegions);
+        if (!serverFileParseResult.isParsedSuccessfully()) {
+            return createErrorInfo(serverFileParseResult);
+        }
+        return writeServerFileDataToServer(createServerFileBuilder(serverFileParser));
+    }
+
+    //формат серверного файла задаётся расширением его имени
+    protected DataFileType getServerFileType() {
+        return DataFileType.fromFileName(serverFileName);
+    }
+
+    //формат локального файла задаётся расширением его имени, файлы пакета могут быть в разных форматах.
+    //dataFileType используется для файлов без расширения формата
+    protected DataFileType getLocalFileType(File file) {
+        val localFileType = DataFileType.fromFileName(file.getName());
+        return localFileType != null ? localFileType : dataFileType;
+    }
 
     protected ErrorInfo createErrorInfo(ServerFileParseResult serverFileParseResult) {
         if (serverFileParseResult.isClientHeadlineNotEqualsToServer()) {
@@ -39,20 +135,50 @@ public abstract class BaseServerFileModifier {
                 .build();
     }
 
-    protected ErrorInfo writeServerFileDataToServer(ByteArrayOutputStream serverFileData) {
-        if (serverFileData == null) {
+    protected ErrorInfo createErrorInfo(LocalFileParseResult localFileParseResult) {
+        return ErrorInfo.builder()
+                .errorType(ErrorType.WORKBOOK_LOCAL_FILE_READING_ERROR)
+                .workbookErrorInfo(new WorkbookErrorInfo(localFileParseResult.getErrorCellCode(), localFileParseResult.getCellErrors()))
+                .build();
+    }
+
+    //локальные файлы разбираются параллельно, i-й файл - i-м парсером.
+    //Сообщается ошибка первого по порядку файла, который не удалось разобрать
+    private ErrorInfo parseLocalFiles(List<File> files, List<ParserType> parsers) {
+        val logger = Logger.getLogger(getClass().toString(), "parseLocalFiles");
+        val localFileParseResults = IntStream.range(0, files.size())
+                .parallel()
+                .mapToObj(i -> parsers.get(i).parseClientLocalFile(files.get(i), getLocalFileType(files.get(i))))
+                .collect(Collectors.toList());
+        for (int i = 0; i < localFileParseResults.size(); i++) {
+            val localFileParseResult = localFileParseResults.get(i);
+            if (!localFileParseResult.isParsedSuccessfully()) {
+                logger.log(LogCategory.ERROR, "Couldn't parse local file '" + files.get(i) + "'");
+                return createErrorInfo(localFileParseResult);
+            }
+        }
+        return null;
+    }
+
+    //файл строится до соединения с сервером и записывается сразу в соединение: запись идёт одновременно
+    //с выгрузкой, полная копия файла в памяти не создаётся. После файла выгружается его снимок
+    protected ErrorInfo writeServerFileDataToServer(BaseServerFileBuilder<?> serverFileBuilder) {
+        val ftpConnector = new FTPConnector();
+        boolean serverFileSent;
+        try (ServerFileOutput serverFile = serverFileBuilder.buildServerFile()) {
+            serverFileSent = ftpConnector.sendFile(serverFileName, serverFile::write);
+        } catch (IOException e) {
             return ErrorInfo.builder()
                     .errorType(ErrorType.WORKBOOK_SERVER_FILE_WRITING_ERROR)
                     .build();
         }
-        val inputStream = new ByteArrayInputStream(serverFileData.toByteArray());
-        val ftpConnector = new FTPConnector();
-        if (!ftpConnector.sendFile(inputStream, serverFileName)) {
+        if (!serverFileSent) {
             return ErrorInfo.builder()
                     .errorType(ErrorType.FTP_ERROR)
                     .ftpErrorInfo(new FTPErrorInfo(ftpConnector.getFtpErrorCode()))
                     .build();
         }
+        serverFileBuilder.getSnapshot().send(serverFileName);
         return null;
     }
 }
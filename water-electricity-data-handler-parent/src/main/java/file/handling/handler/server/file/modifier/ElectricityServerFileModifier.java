@@ -1,37 +1,27 @@
 package file.handling.handler.server.file.modifier;
 
-import common.error.info.ErrorInfo;
-import common.error.info.ErrorType;
-import common.error.info.WorkbookErrorInfo;
-import common.logger.Logger;
 import file.handling.handler.server.file.builder.ElectricityServerFileBuilder;
 import file.handling.parser.ElectricityDataParser;
 import lombok.val;
 
-public class ElectricityServerFileModifier extends BaseServerFileModifier {
+public class ElectricityServerFileModifier extends BaseServerFileModifier<ElectricityDataParser> {
 
     @Override
-    public ErrorInfo modifyServerFile() {
-        val logger = Logger.getLogger(WaterServerFileModifier.class.toString(), "modifyServerFile");
-        val parser = new ElectricityDataParser();
-        val serverFileParseResult = parser.parseServerFileWithHeadlinesCheck(serverFileName, localFile);
-        if (!serverFileParseResult.isParsedSuccessfully()) {
-            return createErrorInfo(serverFileParseResult);
-        }
-        val serverFileData = parser.getData();
-        val clientFileParseResult = parser.parseClientLocalFile(localFile, dataFileType);
-        if (!clientFileParseResult.isParsedSuccessfully()) {
-            return ErrorInfo.builder()
-                    .errorType(ErrorType.WORKBOOK_LOCAL_FILE_READING_ERROR)
-                    .workbookErrorInfo(new WorkbookErrorInfo(clientFileParseResult.getErrorCellCode()))
-                    .build();
+    protected ElectricityDataParser createParser() {
+        return new ElectricityDataParser();
+    }
+
+    @Override
+    protected ElectricityServerFileBuilder createServerFileBuilder(ElectricityDataParser serverFileParser) {
+        val serverFileData = serverFileParser.getData();
+        for (ElectricityDataParser localFileParser : localFileParsers) {
+            serverFileData.addAll(localFileParser.getData());
         }
-        val clientFileData = parser.getData();
-        serverFileData.addAll(clientFileData);
-        val waterServerFileFormatter =
-                new ElectricityServerFileBuilder(serverFileData, parser.getFirstDate(), parser.getSecondDate());
-        val serverFileDataStream = waterServerFileFormatter.build();
-        return writeServerFileDataToServer(serverFileDataStream);
+        //шапка берётся из последнего файла пакета, как при добавлении файлов по одному
+        val lastLocalFileParser = localFileParsers.get(localFileParsers.size() - 1);
+        val electricityServerFileFormatter = new ElectricityServerFileBuilder(serverFileData,
+                lastLocalFileParser.getFirstDate(), lastLocalFileParser.getSecondDate(), getServerFileType());
+        return electricityServerFileFormatter;
     }
 
 }
@@ -5,11 +5,13 @@ import common.DataType;
 import lombok.val;
 
 import java.io.File;
+import java.util.List;
 
 
 public class ServerFileModifierBuilder {
     private String serverFileName;
     private File localFile;
+    private List<File> localFiles;
     private DataFileType dataFileType;
 
     public ServerFileModifierBuilder setServerFileName(String serverFileName) {
@@ -22,22 +24,29 @@ public class ServerFileModifierBuilder {
         return this;
     }
 
+    public ServerFileModifierBuilder setLocalFiles(List<File> localFiles) {
+        this.localFiles = localFiles;
+        return this;
+    }
+
     public ServerFileModifierBuilder setDataFileType(DataFileType dataFileType) {
         this.dataFileType = dataFileType;
         return this;
     }
 
-    public BaseServerFileModifier build(DataType dataType) {
+    public BaseServerFileModifier<?> build(DataType dataType) {
         switch (dataType) {
             case WATER:
                 val waterServerFileModifier = new WaterServerFileModifier();
                 waterServerFileModifier.setLocalFile(localFile);
+                waterServerFileModifier.setLocalFiles(localFiles);
                 waterServerFileModifier.setServerFileName(serverFileName);
                 waterServerFileModifier.setDataFileType(dataFileType);
                 return waterServerFileModifier;
             case ELECTRICITY:
                 val electricityServerFileModifier = new ElectricityServerFileModifier();
                 electricityServerFileModifier.setLocalFile(localFile);
+                electricityServerFileModifier.setLocalFiles(localFiles);
                 electricityServerFileModifier.setServerFileName(serverFileName);
                 electricityServerFileModifier.setDataFileType(dataFileType);
                 return electricityServerFileModifier;
@@ -0,0 +1,182 @@
+package file.handling.model;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//данные файла по столбцам: значения каждого поля всех строк лежат в одном массиве
+public abstract class BaseDataset<DataModelType extends BaseDataModel> {
+    private static final int INITIAL_CAPACITY = 64;
+    //при большем разбросе номеров групп сортировка подсчётом не используется
+    private static final int MAX_COUNTING_SORT_RANGE = 1024;
+
+    private final List<Column> columns = new ArrayList<>();
+    private final IntColumn groups = addColumn(new IntColumn());
+    private final DictionaryColumn addresses = addColumn(new DictionaryColumn());
+    private final IntColumn regions = addColumn(new IntColumn());
+    private final IntColumn biggestFloors = addColumn(new IntColumn());
+    private final IntColumn smallestFloors = addColumn(new IntColumn());
+    private final DoubleColumn joints = addColumn(new DoubleColumn());
+
+    @Getter
+    private int size;
+    private int capacity;
+
+    protected <ColumnType extends Column> ColumnType addColumn(ColumnType column) {
+        columns.add(column);
+        return column;
+    }
+
+    public void add(DataModelType model) {
+        val row = newRow();
+        groups.set(row, model.getGroup());
+        addresses.set(row, model.getAddress());
+        regions.set(row, model.getRegion());
+        biggestFloors.set(row, model.getBiggestFloor());
+        smallestFloors.set(row, model.getSmallestFloor());
+        joints.set(row, model.getJoint());
+        setRow(row, model);
+    }
+
+    //набор данных должен быть того же типа
+    public void addAll(BaseDataset<DataModelType> dataset) {
+        val sourceSize = dataset.size;
+        for (int sourceRow = 0; sourceRow < sourceSize; sourceRow++) {
+            val row = newRow();
+            for (int i = 0; i < columns.size(); i++) {
+                columns.get(i).copy(dataset.columns.get(i), sourceRow, row);
+            }
+        }
+    }
+
+    //все строки удаляются, массивы столбцов остаются для следующих строк
+    public void clear() {
+        size = 0;
+    }
+
+    //оставшиеся строки сдвигаются на место удалённых с сохранением порядка
+    public void removeRegion(int region) {
+        int newSize = 0;
+        for (int row = 0; row < size; row++) {
+            if (regions.get(row) == region) {
+                continue;
+            }
+            if (row != newSize) {
+                for (Column column : columns) {
+                    column.move(row, newSize);
+                }
+            }
+            newSize++;
+        }
+        size = newSize;
+    }
+
+    //номера строк в порядке возрастания групп, внутри группы порядок строк сохраняется
+    public int[] getRowsOrderedByGroup() {
+        if (size == 0) {
+            return new int[0];
+        }
+        int minGroup = groups.get(0);
+        int maxGroup = minGroup;
+        for (int row = 1; row < size; row++) {
+            minGroup = Math.min(minGroup, groups.get(row));
+            maxGroup = Math.max(maxGroup, groups.get(row));
+        }
+        if (maxGroup - minGroup >= MAX_COUNTING_SORT_RANGE) {
+            return sortRowsByGroup();
+        }
+        val groupStarts = new int[maxGroup - minGroup + 2];
+        for (int row = 0; row < size; row++) {
+            groupStarts[groups.get(row) - minGroup + 1]++;
+        }
+        for (int i = 1; i < groupStarts.length; i++) {
+            groupStarts[i] += groupStarts[i - 1];
+        }
+        val orderedRows = new int[size];
+        for (int row = 0; row < size; row++) {
+            orderedRows[groupStarts[groups.get(row) - minGroup]++] = row;
+        }
+        return orderedRows;
+    }
+
+    //запись строк rows по столбцам: число строк, число столбцов, значения каждого столбца подряд
+    public void writeColumns(DataOutput output, int[] rows) throws IOException {
+        output.writeInt(rows.length);
+        output.writeInt(columns.size());
+        for (Column column : columns) {
+            column.write(output, rows);
+        }
+    }
+
+    //строки, записанные writeColumns набором данных того же типа, добавляются в конец
+    public void readColumns(DataInput input) throws IOException {
+        val rowCount = input.readInt();
+        val columnCount = input.readInt();
+        if (rowCount < 0 || columnCount != columns.size()) {
+            throw new IOException("Wrong columns data: rows = " + rowCount + ", columns = " + columnCount);
+        }
+        val firstRow = size;
+        for (int i = 0; i < rowCount; i++) {
+            newRow();
+        }
+        for (Column column : columns) {
+            column.read(input, firstRow, rowCount);
+        }
+    }
+
+    public int getGroup(int row) {
+        return groups.get(row);
+    }
+
+    public String getAddress(int row) {
+        return addresses.get(row);
+    }
+
+    public int getRegion(int row) {
+        return regions.get(row);
+    }
+
+    public int getBiggestFloor(int row) {
+        return biggestFloors.get(row);
+    }
+
+    public int getSmallestFloor(int row) {
+        return smallestFloors.get(row);
+    }
+
+    public double getJoint(int row) {
+        return joints.get(row);
+    }
+
+    //заполнение столбцов конкретного типа данных
+    protected abstract void setRow(int row, DataModelType model);
+
+    private int newRow() {
+        if (size == capacity) {
+            capacity = Math.max(INITIAL_CAPACITY, capacity * 2);
+            for (Column column : columns) {
+                column.grow(capacity);
+            }
+        }
+        return size++;
+    }
+
+    private int[] sortRowsByGroup() {
+        val rows = new Integer[size];
+        for (int row = 0; row < size; row++) {
+            rows[row] = row;
+        }
+        Arrays.sort(rows, (first, second) -> Integer.compare(groups.get(first), groups.get(second)));
+        val orderedRows = new int[size];
+        for (int i = 0; i < size; i++) {
+            orderedRows[i] = rows[i];
+        }
+        return orderedRows;
+    }
+}
@@ -0,0 +1,21 @@
+package file.handling.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+//столбец набора данных, хранит значения одного поля для всех строк
+interface Column {
+    void grow(int capacity);
+
+    void move(int fromRow, int toRow);
+
+    //столбец-источник того же типа из другого набора данных
+    void copy(Column source, int sourceRow, int row);
+
+    //запись значений строк rows подряд
+    void write(DataOutput output, int[] rows) throws IOException;
+
+    //чтение rowCount значений, записанных write, в строки начиная с firstRow
+    void read(DataInput input, int firstRow, int rowCount) throws IOException;
+}
@@ -0,0 +1,106 @@
+package file.handling.model;
+
+import lombok.val;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//строковый столбец: каждое различное значение хранится один раз, в строках - его код
+class DictionaryColumn implements Column {
+    private static final int NULL_CODE = -1;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private int[] rowCodes = new int[0];
+
+    String get(int row) {
+        int code = rowCodes[row];
+        return code == NULL_CODE ? null : dictionary.get(code);
+    }
+
+    void set(int row, String value) {
+        rowCodes[row] = encode(value);
+    }
+
+    @Override
+    public void grow(int capacity) {
+        rowCodes = Arrays.copyOf(rowCodes, capacity);
+    }
+
+    @Override
+    public void move(int fromRow, int toRow) {
+        rowCodes[toRow] = rowCodes[fromRow];
+    }
+
+    @Override
+    public void copy(Column source, int sourceRow, int row) {
+        set(row, ((DictionaryColumn) source).get(sourceRow));
+    }
+
+    //записываются только значения, которые есть в строках rows: число значений, значения в UTF-8
+    //и коды строк в новой нумерации
+    @Override
+    public void write(DataOutput output, int[] rows) throws IOException {
+        val newCodes = new int[dictionary.size()];
+        Arrays.fill(newCodes, NULL_CODE);
+        List<String> values = new ArrayList<>();
+        for (int row : rows) {
+            val code = rowCodes[row];
+            if (code != NULL_CODE && newCodes[code] == NULL_CODE) {
+                newCodes[code] = values.size();
+                values.add(dictionary.get(code));
+            }
+        }
+        output.writeInt(values.size());
+        for (String value : values) {
+            val bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+        for (int row : rows) {
+            val code = rowCodes[row];
+            output.writeInt(code == NULL_CODE ? NULL_CODE : newCodes[code]);
+        }
+    }
+
+    @Override
+    public void read(DataInput input, int firstRow, int rowCount) throws IOException {
+        val valueCount = input.readInt();
+        if (valueCount < 0) {
+            throw new IOException("Wrong dictionary size: " + valueCount);
+        }
+        val valueCodes = new int[valueCount];
+        for (int i = 0; i < valueCount; i++) {
+            val bytes = new byte[input.readInt()];
+            input.readFully(bytes);
+            valueCodes[i] = encode(new String(bytes, StandardCharsets.UTF_8));
+        }
+        for (int row = firstRow; row < firstRow + rowCount; row++) {
+            val code = input.readInt();
+            if (code < NULL_CODE || code >= valueCount) {
+                throw new IOException("Wrong dictionary code: " + code);
+            }
+            rowCodes[row] = code == NULL_CODE ? NULL_CODE : valueCodes[code];
+        }
+    }
+
+    private int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+}
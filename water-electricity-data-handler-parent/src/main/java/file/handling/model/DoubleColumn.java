@@ -0,0 +1,47 @@
+package file.handling.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+class DoubleColumn implements Column {
+    private double[] values = new double[0];
+
+    double get(int row) {
+        return values[row];
+    }
+
+    void set(int row, double value) {
+        values[row] = value;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    public void move(int fromRow, int toRow) {
+        values[toRow] = values[fromRow];
+    }
+
+    @Override
+    public void copy(Column source, int sourceRow, int row) {
+        values[row] = ((DoubleColumn) source).values[sourceRow];
+    }
+
+    @Override
+    public void write(DataOutput output, int[] rows) throws IOException {
+        for (int row : rows) {
+            output.writeDouble(values[row]);
+        }
+    }
+
+    @Override
+    public void read(DataInput input, int firstRow, int rowCount) throws IOException {
+        for (int row = firstRow; row < firstRow + rowCount; row++) {
+            values[row] = input.readDouble();
+        }
+    }
+}
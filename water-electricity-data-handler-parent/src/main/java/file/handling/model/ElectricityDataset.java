@@ -0,0 +1,50 @@
+package file.handling.model;
+
+public class ElectricityDataset extends BaseDataset<ElectricityDataModel> {
+    private final DictionaryColumn hasAccountingDevices = addColumn(new DictionaryColumn());
+    private final DoubleColumn expensesHouseFirstMonth = addColumn(new DoubleColumn());
+    private final DoubleColumn expensesHouseSecondMonth = addColumn(new DoubleColumn());
+    private final DoubleColumn expensesNotLivingFirstMonth = addColumn(new DoubleColumn());
+    private final DoubleColumn expensesNotLivingSecondMonth = addColumn(new DoubleColumn());
+    private final DoubleColumn expensesIndividFirstMonth = addColumn(new DoubleColumn());
+    private final DoubleColumn expensesIndividSecondMonth = addColumn(new DoubleColumn());
+
+    @Override
+    protected void setRow(int row, ElectricityDataModel model) {
+        hasAccountingDevices.set(row, model.getHasAccountingDevice());
+        expensesHouseFirstMonth.set(row, model.getExpenseHouseFirstMonth());
+        expensesHouseSecondMonth.set(row, model.getExpenseHouseSecondMonth());
+        expensesNotLivingFirstMonth.set(row, model.getExpenseNotLivingFirstMonth());
+        expensesNotLivingSecondMonth.set(row, model.getExpenseNotLivingSecondMonth());
+        expensesIndividFirstMonth.set(row, model.getExpenseIndividFirstMonth());
+        expensesIndividSecondMonth.set(row, model.getExpenseIndividSecondMonth());
+    }
+
+    public String getHasAccountingDevice(int row) {
+        return hasAccountingDevices.get(row);
+    }
+
+    public double getExpenseHouseFirstMonth(int row) {
+        return expensesHouseFirstMonth.get(row);
+    }
+
+    public double getExpenseHouseSecondMonth(int row) {
+        return expensesHouseSecondMonth.get(row);
+    }
+
+    public double getExpenseNotLivingFirstMonth(int row) {
+        return expensesNotLivingFirstMonth.get(row);
+    }
+
+    public double getExpenseNotLivingSecondMonth(int row) {
+        return expensesNotLivingSecondMonth.get(row);
+    }
+
+    public double getExpenseIndividFirstMonth(int row) {
+        return expensesIndividFirstMonth.get(row);
+    }
+
+    public double getExpenseIndividSecondMonth(int row) {
+        return expensesIndividSecondMonth.get(row);
+    }
+}
@@ -0,0 +1,38 @@
+package file.handling.model;
+
+public class WaterDataset extends BaseDataset<WaterDataModel> {
+    private final IntColumn people = addColumn(new IntColumn());
+    private final DictionaryColumn hasColdWaterAccountingDevices = addColumn(new DictionaryColumn());
+    private final DictionaryColumn hasHotWaterAccountingDevices = addColumn(new DictionaryColumn());
+    private final DoubleColumn expensesHouseCold = addColumn(new DoubleColumn());
+    private final DoubleColumn expensesHouseHot = addColumn(new DoubleColumn());
+
+    @Override
+    protected void setRow(int row, WaterDataModel model) {
+        people.set(row, model.getPeople());
+        hasColdWaterAccountingDevices.set(row, model.getHasColdWaterAccountingDevice());
+        hasHotWaterAccountingDevices.set(row, model.getHasHotWaterAccountingDevice());
+        expensesHouseCold.set(row, model.getExpenseHouseCold());
+        expensesHouseHot.set(row, model.getExpenseHouseHot());
+    }
+
+    public int getPeople(int row) {
+        return people.get(row);
+    }
+
+    public String getHasColdWaterAccountingDevice(int row) {
+        return hasColdWaterAccountingDevices.get(row);
+    }
+
+    public String getHasHotWaterAccountingDevice(int row) {
+        return hasHotWaterAccountingDevices.get(row);
+    }
+
+    public double getExpenseHouseCold(int row) {
+        return expensesHouseCold.get(row);
+    }
+
+    public double getExpenseHouseHot(int row) {
+        return expensesHouseHot.get(row);
+    }
+}
@@ -4,170 +4,470 @@ import common.DataFileType;
 import common.logger.LogCategory;
 import common.logger.Logger;
 import file.handling.model.BaseDataModel;
+import file.handling.model.BaseDataset;
 import file.handling.parser.exception.CellParseException;
 import file.handling.parser.exception.FileHeadlinesNotEquals;
 import file.handling.parser.exception.RegionDataAlreadyExistException;
+import file.handling.parser.reader.ServerFileReader;
+import file.handling.parser.reader.SheetCell;
+import file.handling.parser.reader.SheetRowHandler;
+import file.handling.parser.reader.WorkbookSheetReader;
+import file.handling.parser.reader.XlsxStreamingSheetReader;
+import file.handling.snapshot.ServerFileSnapshot;
+import file.handling.util.RegionSet;
 import file.handling.util.RegionsUtils;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.val;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.xml.sax.SAXException;
 import server.connector.ftp.FTPConnector;
 
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
-public abstract class BaseParser<DataModelType extends BaseDataModel> {
+public abstract class BaseParser<DataModelType extends BaseDataModel,
+        DatasetType extends BaseDataset<DataModelType>> {
 
     @Getter
-    protected List<DataModelType> data;
+    protected DatasetType data;
+
+    static final int FIRST_DATA_ROW_NUMBER = 5;
+    //число строк в одной части при параллельном разборе
+    private static final int PARALLEL_CHUNK_SIZE = 512;
 
     private DataFileType dataFileType;
 
+    @Setter
+    private boolean parallelParsing = Runtime.getRuntime().availableProcessors() > 1;
+
+    //декодеры ячеек, индекс массива - номер столбца
+    private final CellDecoder<DataModelType>[] localFileDecoders;
+    private final CellDecoder<DataModelType>[] serverFileDecoders;
+
+    private final Logger rowLogger;
+
+    //показатели текущего разбора
+    private ParseMetrics parseMetrics;
+
+    //режим проверки локального файла: разбираются все ячейки, ошибки собираются в один отчёт
+    @Setter
+    private boolean collectingCellErrors;
+    //ошибки текущего разбора в режиме проверки, пополняются из нескольких потоков
+    private Queue<CellError> cellErrors;
+
+    //ячейки строк заголовка текущего локального файла, сохраняются в кэш вместе с данными
+    private List<SheetCell> localFileHeaderCells;
+
+    //ячейка A1 локального файла, сравнивается с заголовком серверного файла
+    @Getter
+    private String localFileHeadline;
+
     BaseParser() {
-        data = new ArrayList<>();
+        data = createDataset();
+        rowLogger = Logger.getLogger(getClass().toString(), "decodeRow");
+        localFileDecoders = createLocalFileDecoders();
+        serverFileDecoders = createServerFileDecoders();
     }
 
     public LocalFileParseResult parseClientLocalFile(File dataFile, DataFileType dataFileType) {
-        data.clear();
+        data = createDataset();
+        parseMetrics = new ParseMetrics();
+        localFileHeaderCells = new ArrayList<>();
+        localFileHeadline = null;
+        cellErrors = collectingCellErrors ? new ConcurrentLinkedQueue<>() : null;
         this.dataFileType = dataFileType;
         val logger = Logger.getLogger(getClass().toString(), "parse");
         try {
-            parseDataFromLocalFile(dataFile);
-            return LocalFileParseResult.builder().parsedSuccessfully(true).build();
+            val cacheKey = createLocalFileCacheKey(dataFile);
+            if (!readCachedLocalFile(cacheKey)) {
+                parseDataFromLocalFile(dataFile);
+                if (cellErrors != null && !cellErrors.isEmpty()) {
+                    return createCellErrorsResult(cellErrors);
+                }
+                cacheLocalFile(cacheKey);
+            }
+            return LocalFileParseResult.builder().parsedSuccessfully(true).parseMetrics(finishParseMetrics()).build();
         } catch (CellParseException cpe) {
-            val cellCode = cpe.getCellCode();
-            logger.log(LogCategory.ERROR, "Error during parsing cell '" + cellCode + "'");
-            return LocalFileParseResult.builder().errorCellCode(cellCode).build();
+            return createCellErrorsResult(Collections.singletonList(cpe.getCellError()));
         } catch (Exception e) {
             logger.log(LogCategory.ERROR, "Error during parsing file '" + dataFile + "': " + e);
-            return LocalFileParseResult.builder().build();
+            return LocalFileParseResult.builder().parseMetrics(finishParseMetrics()).build();
         }
     }
 
-    public ServerFileParseResult parseServerFileWithHeadlinesCheck(String serverFileName, File localFile) {
-        data.clear();
+    //заголовок и регионы локальных файлов известны после их разбора, до загрузки серверного файла
+    public ServerFileParseResult parseServerFileWithHeadlinesCheck(String serverFileName, String localFileHeadline,
+                                                                   RegionSet localFileRegions) {
+        data = createDataset();
+        parseMetrics = new ParseMetrics();
+        cellErrors = null;
         val logger = Logger.getLogger(getClass().toString(), "parse");
         try {
-            val regions = parseDataFromServerFileWithHeadlinesCheck(serverFileName, localFile);
+            val regions =
+                    parseDataFromServerFileWithHeadlinesCheck(serverFileName, localFileHeadline, localFileRegions);
             return ServerFileParseResult.builder().parsedSuccessfully(true)
                     .clientHeadlineNotEqualsToServer(true)
                     .serverFileRegions(regions)
+                    .parseMetrics(finishParseMetrics())
                     .build();
         } catch (FileHeadlinesNotEquals e) {
             return ServerFileParseResult.builder().parsedSuccessfully(false)
                     .clientHeadlineNotEqualsToServer(true)
+                    .parseMetrics(finishParseMetrics())
                     .build();
         } catch (RegionDataAlreadyExistException e) {
             return ServerFileParseResult.builder().parsedSuccessfully(false)
                     .clientRegionAlreadyExistInServerFile(true)
+                    .parseMetrics(finishParseMetrics())
                     .build();
         } catch (CellParseException cpe) {
             val cellCode = cpe.getCellCode();
             logger.log(LogCategory.ERROR, "Error during parsing cell '" + cellCode + "'");
             return ServerFileParseResult.builder().parsedSuccessfully(false)
                     .errorCellCode(cellCode)
+                    .parseMetrics(finishParseMetrics())
                     .build();
         } catch (Exception e) {
             logger.log(LogCategory.ERROR, "Error during parsing file '" + serverFileName + "': " + e);
             return ServerFileParseResult.builder().parsedSuccessfully(false)
+                    .parseMetrics(finishParseMetrics())
                     .build();
         }
     }
 
     public ServerFileParseResult parseServerFile(String serverFileName) {
-        data.clear();
+        data = createDataset();
+        parseMetrics = new ParseMetrics();
+        cellErrors = null;
         val logger = Logger.getLogger(getClass().toString(), "parseServerFile");
         try {
             parseDataFromServerFile(serverFileName);
             return ServerFileParseResult.builder().parsedSuccessfully(true)
                     .clientHeadlineNotEqualsToServer(true)
+                    .parseMetrics(finishParseMetrics())
                     .build();
         } catch (CellParseException cpe) {
             val cellCode = cpe.getCellCode();
             logger.log(LogCategory.ERROR, "Error during parsing cell '" + cellCode + "'");
             return ServerFileParseResult.builder().parsedSuccessfully(false)
                     .errorCellCode(cellCode)
+                    .parseMetrics(finishParseMetrics())
                     .build();
         } catch (Exception e) {
             logger.log(LogCategory.ERROR, "Error during parsing file '" + serverFileName + "': " + e);
             return ServerFileParseResult.builder().parsedSuccessfully(false)
+                    .parseMetrics(finishParseMetrics())
                     .build();
         }
     }
 
+    //последовательное чтение серверного файла без снимка: строки разбираются в набор данных парсера,
+    //который передаётся chunkConsumer через каждые PARALLEL_CHUNK_SIZE строк и в конце файла.
+    //В памяти одновременно не больше одной части строк. Ошибка записи chunkConsumer передаёт
+    //как UncheckedIOException
+    public void readServerFile(String serverFileName, Consumer<DatasetType> chunkConsumer) throws IOException {
+        data = createDataset();
+        parseMetrics = new ParseMetrics();
+        cellErrors = null;
+        val logger = Logger.getLogger(getClass().getName(), "readServerFile");
+        val serverFileReader = openServerFile(serverFileName);
+        val phaseStart = System.nanoTime();
+        try {
+            logger.log(LogCategory.INFO, "Reading server file: " + serverFileName);
+            serverFileReader.read(new CountingRowHandler(new ChunkConsumingRowHandler(chunkConsumer)));
+            if (data.getSize() > 0) {
+                chunkConsumer.accept(data);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (CellParseException cpe) {
+            throw new IOException("Error during parsing cell '" + cpe.getCellCode() + "'", cpe);
+        } finally {
+            closeServerFile(serverFileReader, parseMetrics.addDecodeTime(phaseStart));
+            finishParseMetrics();
+        }
+    }
 
-    protected abstract void parseServerFileCell(Row row, Cell cell);
+    protected abstract DataModelType createDataModel();
 
-    protected abstract void parseLocalFileCell(int region, Row row, Cell cell);
+    protected abstract DatasetType createDataset();
 
+    protected abstract CellDecoder<DataModelType>[] createLocalFileDecoders();
 
-    void addGroupAndAddressToModel(int group, Cell cell, BaseDataModel model) {
-        if (cell.getCellTypeEnum().equals(CellType.STRING)) {
-            model.setAddress(cell.getRichStringCellValue().getString());
-            model.setGroup(group);
+    protected abstract CellDecoder<DataModelType>[] createServerFileDecoders();
+
+    //чтение данных из строк заголовка локального файла (период, даты)
+    protected abstract void parseLocalFileHeaderCell(SheetCell cell);
+
+    //массив аргументов не выходит за пределы метода: декодеры копируются в новый массив
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    static <DataModelType extends BaseDataModel> CellDecoder<DataModelType>[] decoders(
+            CellDecoder<DataModelType>... decoders) {
+        val result = (CellDecoder<DataModelType>[]) new CellDecoder<?>[decoders.length];
+        for (int i = 0; i < decoders.length; i++) {
+            result[i] = decoders[i];
         }
+        return result;
+    }
+
+
+    //строка с названием группы имеет вид "N. ..."
+    private static boolean isGroupHeadline(String value) {
+        return value.length() > 2 && Character.isDigit(value.charAt(0)) && value.charAt(1) == '.';
+    }
+
+    //название группы в первом столбце серверного файла задаёт группу для следующих строк
+    private static int nextGroup(SheetCell cell, int group) {
+        if (cell.getColumnIndex() == 0 && cell.getCellTypeEnum() == CellType.STRING) {
+            val headline = cell.getStringCellValue();
+            if (isGroupHeadline(headline)) {
+                return Character.getNumericValue(headline.charAt(0));
+            }
+        }
+        return group;
     }
 
     private void parseDataFromLocalFile(File dataFile)
-    throws IOException, InvalidFormatException {
+    throws IOException, InvalidFormatException, OpenXML4JException, SAXException, ParserConfigurationException {
         val region = RegionsUtils.getFileRegion(dataFile, dataFileType);
+        val rowHandler = new LocalFileRowHandler(region, data);
+        if (!parallelParsing) {
+            readLocalFile(dataFile, rowHandler);
+            return;
+        }
+        val chunkedRowHandler =
+                new ChunkedRowHandler(rowHandler, (group, target) -> new LocalFileRowHandler(region, target));
+        try {
+            readLocalFile(dataFile, chunkedRowHandler);
+            val phaseStart = System.nanoTime();
+            chunkedRowHandler.finish();
+            parseMetrics.addDecodeTime(phaseStart);
+        } finally {
+            chunkedRowHandler.awaitPendingChunks();
+        }
+    }
+
+    //чтение файла для контрольной суммы входит в этап открытия, прочитанные байты учитываются здесь один раз
+    private LocalFileParseCache.Key createLocalFileCacheKey(File dataFile) throws IOException {
+        val phaseStart = System.nanoTime();
+        try {
+            return LocalFileParseCache.createKey(getClass(), dataFile);
+        } finally {
+            parseMetrics.setBytesRead(parseMetrics.getBytesRead() + dataFile.length());
+            parseMetrics.addOpenTime(phaseStart);
+        }
+    }
+
+    //данные неизменённого файла копируются из кэша, ячейки заголовка разбираются повторно
+    @SuppressWarnings("unchecked")
+    private boolean readCachedLocalFile(LocalFileParseCache.Key cacheKey) {
+        val cachedFile = LocalFileParseCache.get(cacheKey);
+        if (cachedFile == null) {
+            return false;
+        }
+        val phaseStart = System.nanoTime();
+        for (SheetCell cell : cachedFile.getHeaderCells()) {
+            parseLocalFileHeader(cell);
+        }
+        data.addAll((DatasetType) cachedFile.getData());
+        parseMetrics.addDecodeTime(phaseStart);
+        parseMetrics.setCacheHits(1);
+        return true;
+    }
+
+    //в кэш сохраняется копия, так как набор данных парсера может изменяться после разбора
+    private void cacheLocalFile(LocalFileParseCache.Key cacheKey) {
+        val cachedData = createDataset();
+        cachedData.addAll(data);
+        LocalFileParseCache.put(cacheKey, new LocalFileParseCache.Entry(cachedData, localFileHeaderCells));
+    }
+
+    private void readLocalFile(File dataFile, SheetRowHandler rowHandler)
+    throws IOException, InvalidFormatException, OpenXML4JException, SAXException, ParserConfigurationException {
+        val countingRowHandler = new CountingRowHandler(rowHandler);
+        long phaseStart = System.nanoTime();
+        if (dataFileType == DataFileType.XSLX) {
+            val sheetReader = new XlsxStreamingSheetReader(dataFile);
+            phaseStart = parseMetrics.addOpenTime(phaseStart);
+            try {
+                sheetReader.read(countingRowHandler);
+            } finally {
+                phaseStart = parseMetrics.addDecodeTime(phaseStart);
+                sheetReader.close();
+                parseMetrics.addCloseTime(phaseStart);
+            }
+            return;
+        }
         val woorkbook = WorkbookFactory.create(dataFile);
-        val firstSheet = woorkbook.getSheetAt(0); //номер листа в файле
-        firstSheet.forEach(row -> parseLocalFileRow(region, row));
-        woorkbook.close();
+        phaseStart = parseMetrics.addOpenTime(phaseStart);
+        try {
+            val firstSheet = woorkbook.getSheetAt(0); //номер листа в файле
+            new WorkbookSheetReader().read(firstSheet, countingRowHandler);
+        } finally {
+            phaseStart = parseMetrics.addDecodeTime(phaseStart);
+            woorkbook.close();
+            parseMetrics.addCloseTime(phaseStart);
+        }
     }
 
-    private List<Integer> parseDataFromServerFileWithHeadlinesCheck(String serverFileName, File localFile)
-    throws IOException, InvalidFormatException, FileHeadlinesNotEquals {
+    private RegionSet parseDataFromServerFileWithHeadlinesCheck(String serverFileName, String localFileHeadline,
+                                                                RegionSet localFileRegions)
+    throws IOException, FileHeadlinesNotEquals {
         val logger = Logger.getLogger(getClass().getName(), "parseDataFromServerFile");
-        val ftpConnector = new FTPConnector();
-        val inputStream = ftpConnector.getInputFileStream(serverFileName);
-        val serverFileWorkbook = WorkbookFactory.create(inputStream);
-        val serverFileFirstSheet = serverFileWorkbook.getSheetAt(0);
-        val serverFileFirstSheetRow = serverFileFirstSheet.getRow(0);
-        val serverFileFirstSheetRowCell = serverFileFirstSheetRow.getCell(0);
-        val serverFileFirstLine = serverFileFirstSheetRowCell.getStringCellValue();
-
-        val localFileWorkbook = WorkbookFactory.create(localFile);
-        val localFileFirstSheet = localFileWorkbook.getSheetAt(0);
-        val localFileFirstSheetRow = localFileFirstSheet.getRow(0);
-        val localFileFirstSheetRowCell = localFileFirstSheetRow.getCell(0);
-        val localFileFirstLine = localFileFirstSheetRowCell.getStringCellValue();
-        localFileWorkbook.close();
-
-        val checkHeadsOfFiles = checkEqualityOfHeadlines(serverFileFirstLine, localFileFirstLine);
+        val snapshot = receiveServerFileSnapshot(serverFileName);
+        if (snapshot != null) {
+            val phaseStart = System.nanoTime();
+            try {
+                val serverFileRegions =
+                        checkServerFile(snapshot.getHeadline(), snapshot.getRegions(), localFileHeadline, localFileRegions);
+                logger.log(LogCategory.INFO, "Reading snapshot of server file: " + serverFileName);
+                snapshot.readData(data);
+                return serverFileRegions;
+            } finally {
+                parseMetrics.addDecodeTime(phaseStart);
+            }
+        }
+        val serverFileReader = openServerFile(serverFileName);
+        val phaseStart = System.nanoTime();
+        try {
+            //файл читается за один проход: чтение прерывается на ячейке A1, если заголовки не совпадают,
+            //регионы проверяются после разбора строк
+            logger.log(LogCategory.INFO, "Parsing server file: " + serverFileName);
+            val headlinesEqual = readServerFileData(serverFileReader,
+                    serverFileHeadline -> checkEqualityOfHeadlines(serverFileHeadline, localFileHeadline));
+            if (!headlinesEqual) {
+                throw new FileHeadlinesNotEquals();
+            }
+            return checkServerFileRegions(serverFileReader.getRegions(), localFileRegions);
+        } finally {
+            closeServerFile(serverFileReader, parseMetrics.addDecodeTime(phaseStart));
+        }
+    }
+
+    //заголовок серверного файла должен совпадать с заголовком локальных файлов, а регионы - не пересекаться
+    private RegionSet checkServerFile(String serverFileHeadline, RegionSet serverFileRegions, String localFileHeadline,
+                                      RegionSet localFileRegions) throws FileHeadlinesNotEquals {
+        val checkHeadsOfFiles = checkEqualityOfHeadlines(serverFileHeadline, localFileHeadline);
         if (!checkHeadsOfFiles) {
             throw new FileHeadlinesNotEquals();
         }
-        logger.log(LogCategory.INFO, "Parsing server water file: " + serverFileName);
-        val serverFileRegions = RegionsUtils.readRegionsFromSecondPage(serverFileWorkbook);
-        val localFileRegion = RegionsUtils.getFileRegion(localFile, dataFileType);
-        if (serverFileRegions.contains(localFileRegion)) {
+        return checkServerFileRegions(serverFileRegions, localFileRegions);
+    }
+
+    //регионы локальных файлов не должны уже быть в серверном файле
+    private RegionSet checkServerFileRegions(RegionSet serverFileRegions, RegionSet localFileRegions) {
+        val logger = Logger.getLogger(getClass().getName(), "checkServerFileRegions");
+        val existedLocalFileRegions = localFileRegions.intersection(serverFileRegions);
+        if (!existedLocalFileRegions.isEmpty()) {
+            logger.log(LogCategory.ERROR, "Regions " + existedLocalFileRegions + " already exist");
             throw new RegionDataAlreadyExistException();
         }
-        serverFileFirstSheet.forEach(this::parseServerFileRow);
-        serverFileWorkbook.close();
         return serverFileRegions;
     }
 
-    private void parseDataFromServerFile(String serverFileName) throws IOException, InvalidFormatException {
+    private void parseDataFromServerFile(String serverFileName) throws IOException {
         val logger = Logger.getLogger(getClass().getName(), "parseDataFromServerFile");
+        val snapshot = receiveServerFileSnapshot(serverFileName);
+        if (snapshot != null) {
+            val phaseStart = System.nanoTime();
+            try {
+                logger.log(LogCategory.INFO, "Reading snapshot of server file: " + serverFileName);
+                snapshot.readData(data);
+            } finally {
+                parseMetrics.addDecodeTime(phaseStart);
+            }
+            return;
+        }
+        val serverFileReader = openServerFile(serverFileName);
+        val phaseStart = System.nanoTime();
+        try {
+            logger.log(LogCategory.INFO, "Parsing server file: " + serverFileName);
+            readServerFileData(serverFileReader, null);
+        } finally {
+            closeServerFile(serverFileReader, parseMetrics.addDecodeTime(phaseStart));
+        }
+    }
+
+    //headlineCheck может быть null; false, если заголовок серверного файла не прошёл проверку
+    private boolean readServerFileData(ServerFileReader serverFileReader, Predicate<String> headlineCheck)
+    throws IOException {
+        val rowHandler = new ServerFileRowHandler(0, data);
+        if (!parallelParsing) {
+            return serverFileReader.read(new CountingRowHandler(rowHandler), headlineCheck);
+        }
+        val chunkedRowHandler =
+                new ChunkedRowHandler(rowHandler, (group, target) -> new ServerFileRowHandler(group, target));
+        try {
+            if (!serverFileReader.read(new CountingRowHandler(chunkedRowHandler), headlineCheck)) {
+                return false;
+            }
+            chunkedRowHandler.finish();
+            return true;
+        } finally {
+            chunkedRowHandler.awaitPendingChunks();
+        }
+    }
+
+    //снимок серверного файла, который можно прочитать в набор данных парсера, или null.
+    //Время загрузки снимка и проверки его версии входит в этап открытия файла
+    private ServerFileSnapshot receiveServerFileSnapshot(String serverFileName) {
+        val phaseStart = System.nanoTime();
+        val snapshot = ServerFileSnapshot.receive(serverFileName);
+        parseMetrics.addOpenTime(phaseStart);
+        if (snapshot == null || !snapshot.isReadableTo(data)) {
+            return null;
+        }
+        parseMetrics.setBytesRead(parseMetrics.getBytesRead() + snapshot.getSize());
+        return snapshot;
+    }
+
+    //время загрузки с сервера входит в этап открытия файла
+    private ServerFileReader openServerFile(String serverFileName) throws IOException {
+        val phaseStart = System.nanoTime();
         val ftpConnector = new FTPConnector();
         val inputStream = ftpConnector.getInputFileStream(serverFileName);
-        val serverFileWorkbook = WorkbookFactory.create(inputStream);
-        val serverFileFirstSheet = serverFileWorkbook.getSheetAt(0);
-
-        logger.log(LogCategory.INFO, "Parsing server water file: " + serverFileName);
-        serverFileFirstSheet.forEach(this::parseServerFileRow);
-        serverFileWorkbook.close();
+        if (inputStream == null) {
+            parseMetrics.addOpenTime(phaseStart);
+            throw new IOException("Server file '" + serverFileName + "' wasn't retrieved");
+        }
+        //файл загружается с сервера целиком, поток читается из памяти
+        parseMetrics.setBytesRead(parseMetrics.getBytesRead() + inputStream.available());
+        try {
+            return ServerFileReader.open(serverFileName, inputStream);
+        } finally {
+            parseMetrics.addOpenTime(phaseStart);
+        }
     }
 
+    private void closeServerFile(ServerFileReader serverFileReader, long phaseStart) throws IOException {
+        try {
+            serverFileReader.close();
+        } finally {
+            parseMetrics.addCloseTime(phaseStart);
+        }
+    }
 
     private boolean checkEqualityOfHeadlines(String serverFileFirstLine, String localFileFirstLine) {
         val logger = Logger.getLogger(getClass().getName(), "checkEqualityOfHeadlines");
@@ -193,15 +493,304 @@ public abstract class BaseParser<DataModelType extends BaseDataModel> {
         }
     }
 
-    private void parseLocalFileRow(int region, Row row) {
-        row.forEach(cell -> parseLocalFileCell(region, row, cell));
+    //ошибки упорядочиваются по строкам и столбцам, первая ошибка сообщается и как errorCellCode
+    private LocalFileParseResult createCellErrorsResult(Collection<CellError> cellErrors) {
+        val logger = Logger.getLogger(getClass().toString(), "createCellErrorsResult");
+        val errors = new ArrayList<CellError>(cellErrors);
+        errors.sort(Comparator.comparingInt(CellError::getRowIndex).thenComparingInt(CellError::getColumnIndex));
+        for (CellError error : errors) {
+            logger.log(LogCategory.ERROR,
+                    "Error during parsing cell '" + error.getCellCode() + "': " + error.getReason());
+        }
+        return LocalFileParseResult.builder()
+                .errorCellCode(errors.get(0).getCellCode())
+                .cellErrors(errors)
+                .parseMetrics(finishParseMetrics())
+                .build();
     }
 
-    private void parseServerFileRow(Row row) {
-        row.forEach(cell -> parseServerFileCell(row, cell));
+    //показатели разбора добавляются в общую статистику и записываются в лог
+    private ParseMetrics finishParseMetrics() {
+        parseMetrics.updatePeakDataSize(data.getSize());
+        ParseStatistics.add(parseMetrics);
+        val logger = Logger.getLogger(getClass().toString(), "finishParseMetrics");
+        logger.log(LogCategory.INFO, "Parse metrics: " + parseMetrics);
+        return parseMetrics;
     }
 
-}
+    private void parseLocalFileHeader(SheetCell cell) {
+        if (cell.getRowIndex() == 0 && cell.getColumnIndex() == 0 && cell.getCellTypeEnum() == CellType.STRING) {
+            localFileHeadline = cell.getStringCellValue();
+        }
+        parseLocalFileHeaderCell(cell);
+    }
 
+    private void decodeCell(CellDecoder<DataModelType>[] decoders, SheetCell cell, DataModelType model) {
+        val columnIndex = cell.getColumnIndex();
+        if (columnIndex >= decoders.length || decoders[columnIndex] == null) {
+            return;
+        }
+        try {
+            decoders[columnIndex].decode(cell, model);
+        } catch (Exception e) {
+            val reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            val cellError = new CellError(cell.getRowIndex(), columnIndex, cell.getAddress(), reason);
+            if (cellErrors == null) {
+                throw new CellParseException(cellError);
+            }
+            cellErrors.add(cellError);
+        }
+    }
+
+    private DataModelType startDataRow(int rowNum) {
+        if (rowLogger.isEnabled(LogCategory.DEBUG)) {
+            rowLogger.log(LogCategory.DEBUG, "Parsing row = '" + (rowNum + 1) + "'");
+        }
+        return createDataModel();
+    }
+
+    //строки заголовка, названия групп и пустые строки не имеют группы
+    private void addAssembledRow(DataModelType model, DatasetType target) {
+        if (model.getGroup() != 0) {
+            target.add(model);
+        }
+    }
+
+    //одна модель на строку файла, добавляется после разбора всех ячеек строки
+    private class LocalFileRowHandler implements SheetRowHandler {
+        private final int region;
+        private final DatasetType target;
+        private DataModelType model;
 
+        LocalFileRowHandler(int region, DatasetType target) {
+            this.region = region;
+            this.target = target;
+        }
 
+        @Override
+        public void startRow(int rowNum) {
+            model = null;
+            if (rowNum >= FIRST_DATA_ROW_NUMBER) {
+                model = startDataRow(rowNum);
+                model.setRegion(region);
+            }
+        }
+
+        @Override
+        public void cell(SheetCell cell) {
+            if (model == null) {
+                localFileHeaderCells.add(cell.copy());
+                parseLocalFileHeader(cell);
+            } else {
+                decodeCell(localFileDecoders, cell, model);
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (model != null) {
+                addAssembledRow(model, target);
+            }
+        }
+    }
+
+    //группа серверного файла задаётся строкой с её названием и действует до следующего названия
+    private class ServerFileRowHandler implements SheetRowHandler {
+        private final DatasetType target;
+        private int group;
+        private DataModelType model;
+
+        ServerFileRowHandler(int group, DatasetType target) {
+            this.group = group;
+            this.target = target;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            model = rowNum >= FIRST_DATA_ROW_NUMBER ? startDataRow(rowNum) : null;
+        }
+
+        @Override
+        public void cell(SheetCell cell) {
+            if (model != null) {
+                group = nextGroup(cell, group);
+                decodeCell(serverFileDecoders, cell, model);
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (model != null) {
+                if (model.getAddress() != null) {
+                    model.setGroup(group);
+                }
+                addAssembledRow(model, target);
+            }
+        }
+    }
+
+    //набор данных парсера передаётся chunkConsumer, когда в нём PARALLEL_CHUNK_SIZE строк, и очищается
+    private class ChunkConsumingRowHandler extends ServerFileRowHandler {
+        private final Consumer<DatasetType> chunkConsumer;
+
+        ChunkConsumingRowHandler(Consumer<DatasetType> chunkConsumer) {
+            super(0, data);
+            this.chunkConsumer = chunkConsumer;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            super.endRow(rowNum);
+            if (data.getSize() == PARALLEL_CHUNK_SIZE) {
+                parseMetrics.updatePeakDataSize(data.getSize());
+                chunkConsumer.accept(data);
+                data.clear();
+            }
+        }
+    }
+
+    //подсчёт прочитанных строк и ячеек
+    private class CountingRowHandler implements SheetRowHandler {
+        private final SheetRowHandler rowHandler;
+
+        CountingRowHandler(SheetRowHandler rowHandler) {
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            parseMetrics.setRows(parseMetrics.getRows() + 1);
+            rowHandler.startRow(rowNum);
+        }
+
+        @Override
+        public void cell(SheetCell cell) {
+            parseMetrics.setCells(parseMetrics.getCells() + 1);
+            rowHandler.cell(cell);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            rowHandler.endRow(rowNum);
+        }
+    }
+
+    //строки заголовка передаются обработчику сразу, строки с данными копируются и собираются в части
+    //по PARALLEL_CHUNK_SIZE. Каждая часть передаётся пулу fork/join, как только прочитана, с группой
+    //последней строки предыдущей части. В памяти не больше частей, чем потоков пула: перед отправкой
+    //новой части ожидается самая ранняя, её набор данных добавляется к данным парсера в порядке строк файла
+    private class ChunkedRowHandler implements SheetRowHandler {
+        private final SheetRowHandler headerRowHandler;
+        private final BiFunction<Integer, DatasetType, SheetRowHandler> rowHandlerFactory;
+        private final int maxPendingChunks = Math.max(1, ForkJoinPool.commonPool().getParallelism());
+        private final Deque<ForkJoinTask<DatasetType>> pendingChunks = new ArrayDeque<>();
+        private final List<SheetCell> rowCells = new ArrayList<>();
+        private List<SheetCell[]> chunkRows = new ArrayList<>(PARALLEL_CHUNK_SIZE);
+        private int chunkStartGroup;
+        private int group;
+        private boolean dataRow;
+
+        ChunkedRowHandler(SheetRowHandler headerRowHandler,
+                          BiFunction<Integer, DatasetType, SheetRowHandler> rowHandlerFactory) {
+            this.headerRowHandler = headerRowHandler;
+            this.rowHandlerFactory = rowHandlerFactory;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            dataRow = rowNum >= FIRST_DATA_ROW_NUMBER;
+            if (dataRow) {
+                rowCells.clear();
+            } else {
+                headerRowHandler.startRow(rowNum);
+            }
+        }
+
+        @Override
+        public void cell(SheetCell cell) {
+            if (dataRow) {
+                rowCells.add(cell.copy());
+            } else {
+                headerRowHandler.cell(cell);
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!dataRow) {
+                headerRowHandler.endRow(rowNum);
+            } else if (!rowCells.isEmpty()) {
+                val cells = rowCells.toArray(new SheetCell[rowCells.size()]);
+                chunkRows.add(cells);
+                group = nextGroup(cells[0], group);
+                if (chunkRows.size() == PARALLEL_CHUNK_SIZE) {
+                    submitChunk();
+                }
+            }
+        }
+
+        //разбор последней неполной части и ожидание всех частей. Ошибка ранней части сообщается первой
+        void finish() {
+            submitChunk();
+            while (!pendingChunks.isEmpty()) {
+                joinChunk();
+            }
+        }
+
+        //после ошибки чтения или разбора оставшиеся части дожидаются завершения без результата
+        void awaitPendingChunks() {
+            while (!pendingChunks.isEmpty()) {
+                pendingChunks.poll().quietlyJoin();
+            }
+        }
+
+        private void submitChunk() {
+            if (chunkRows.isEmpty()) {
+                return;
+            }
+            if (pendingChunks.size() >= maxPendingChunks) {
+                joinChunk();
+            }
+            val chunkDataset = createDataset();
+            val chunkRowHandler = rowHandlerFactory.apply(chunkStartGroup, chunkDataset);
+            pendingChunks.add(
+                    ForkJoinPool.commonPool().submit(new RowChunkTask(chunkRows, chunkRowHandler, chunkDataset)));
+            chunkRows = new ArrayList<>(PARALLEL_CHUNK_SIZE);
+            chunkStartGroup = group;
+        }
+
+        private void joinChunk() {
+            data.addAll(pendingChunks.peek().join());
+            pendingChunks.poll();
+        }
+    }
+
+    //часть строк разбирается своим обработчиком строк в свой набор данных
+    private class RowChunkTask extends RecursiveTask<DatasetType> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<SheetCell[]> rows;
+        private final SheetRowHandler rowHandler;
+        private final DatasetType dataset;
+
+        RowChunkTask(List<SheetCell[]> rows, SheetRowHandler rowHandler, DatasetType dataset) {
+            this.rows = rows;
+            this.rowHandler = rowHandler;
+            this.dataset = dataset;
+        }
+
+        @Override
+        protected DatasetType compute() {
+            for (SheetCell[] cells : rows) {
+                val rowNum = cells[0].getRowIndex();
+                rowHandler.startRow(rowNum);
+                for (SheetCell cell : cells) {
+                    rowHandler.cell(cell);
+                }
+                rowHandler.endRow(rowNum);
+            }
+            return dataset;
+        }
+    }
+
+}
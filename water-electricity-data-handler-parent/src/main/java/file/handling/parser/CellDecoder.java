@@ -0,0 +1,9 @@
+package file.handling.parser;
+
+import file.handling.model.BaseDataModel;
+import file.handling.parser.reader.SheetCell;
+
+@FunctionalInterface
+interface CellDecoder<DataModelType extends BaseDataModel> {
+    void decode(SheetCell cell, DataModelType model);
+}
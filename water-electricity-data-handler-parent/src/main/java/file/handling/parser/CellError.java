@@ -0,0 +1,14 @@
+package file.handling.parser;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//ячейка, которую не удалось разобрать, и причина ошибки
+@Data
+@AllArgsConstructor
+public class CellError {
+    private int rowIndex;
+    private int columnIndex;
+    private String cellCode;
+    private String reason;
+}
@@ -0,0 +1,72 @@
+package file.handling.parser;
+
+import file.handling.model.BaseDataset;
+import file.handling.parser.reader.SheetCell;
+import lombok.Data;
+import lombok.val;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+//последние разобранные локальные файлы. Повторная отправка неизменённого файла
+//(после ошибки блокировки или FTP) не читает его через POI
+final class LocalFileParseCache {
+    private static final int MAX_ENTRIES = 8;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    //порядок доступа: первым удаляется файл, который дольше всего не запрашивался
+    private static final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(MAX_ENTRIES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private LocalFileParseCache() {
+    }
+
+    //время изменения может не поменяться при быстрой перезаписи файла, поэтому в ключ входит и контрольная сумма
+    static Key createKey(Class<?> parserClass, File file) throws IOException {
+        val checksum = new CRC32();
+        val buffer = new byte[READ_BUFFER_SIZE];
+        try (val inputStream = new FileInputStream(file)) {
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                checksum.update(buffer, 0, count);
+            }
+        }
+        return new Key(parserClass, file.getAbsolutePath(), file.length(), file.lastModified(), checksum.getValue());
+    }
+
+    static synchronized Entry get(Key key) {
+        return entries.get(key);
+    }
+
+    static synchronized void put(Key key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    //файл одного и того же пути разбирается по-разному парсерами воды и электроэнергии
+    @Data
+    static class Key {
+        private final Class<?> parserClass;
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final long contentHash;
+    }
+
+    //набор данных не изменяется после сохранения, ячейки заголовка нужны для периода и дат
+    @Data
+    static class Entry {
+        private final BaseDataset<?> data;
+        private final List<SheetCell> headerCells;
+    }
+}
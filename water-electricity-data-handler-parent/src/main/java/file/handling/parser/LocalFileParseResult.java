@@ -3,9 +3,13 @@ package file.handling.parser;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 @Builder
 public class LocalFileParseResult {
     private boolean parsedSuccessfully;
     private String errorCellCode;
+    private List<CellError> cellErrors;
+    private ParseMetrics parseMetrics;
 }
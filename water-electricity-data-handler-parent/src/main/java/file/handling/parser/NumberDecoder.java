@@ -0,0 +1,95 @@
+package file.handling.parser;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+//разбор чисел из ячеек без создания объектов. Результат совпадает с
+//new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue() и Double.valueOf(value)
+final class NumberDecoder {
+    //до этой границы value * 100 и номер сотой доли точно представимы в double
+    private static final double MAX_FAST_ROUNDING_VALUE = 1e13;
+    //множитель для разбиения числа на старшую и младшую половины (алгоритм Деккера)
+    private static final double SPLITTER = 134217729.0; //2^27 + 1
+    //степени десяти, точно представимые в double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    //мантисса из 15 цифр точно представима в double
+    private static final int MAX_FAST_PARSING_DIGITS = 15;
+
+    private NumberDecoder() {
+    }
+
+    static double roundToHundredths(double value) {
+        double absValue = Math.abs(value);
+        if (!(absValue < MAX_FAST_ROUNDING_VALUE)) {
+            //большие значения; для NaN и бесконечности - то же исключение, что и раньше
+            return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        }
+        //точное значение absValue * 100 = product + productError
+        double product = absValue * 100;
+        double high = absValue * SPLITTER;
+        high = high - (high - absValue);
+        double low = absValue - high;
+        double productError = (high * 100 - product) + low * 100;
+
+        double hundredths = Math.floor(product);
+        double distanceToHalf = (product - hundredths) - 0.5;
+        //HALF_UP: половина округляется от нуля
+        if (distanceToHalf + productError >= 0) {
+            hundredths++;
+        }
+        if (hundredths == 0) {
+            return 0;
+        }
+        double result = hundredths / 100;
+        return value < 0 ? -result : result;
+    }
+
+    //простые десятичные записи "[+-]цифры[.цифры]" разбираются без Double.parseDouble
+    static double parseDouble(String value) {
+        int length = value.length();
+        int position = 0;
+        boolean negative = false;
+        if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean digitFound = false;
+        boolean pointFound = false;
+        for (; position < length; position++) {
+            char c = value.charAt(position);
+            if (c == '.' && !pointFound) {
+                pointFound = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return Double.parseDouble(value);
+            }
+            digitFound = true;
+            //ведущие нули не занимают разрядов мантиссы
+            if (c != '0' || mantissa != 0) {
+                mantissa = mantissa * 10 + (c - '0');
+                significantDigits++;
+            }
+            if (pointFound) {
+                fractionDigits++;
+            }
+            if (significantDigits > MAX_FAST_PARSING_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+                return Double.parseDouble(value);
+            }
+        }
+        if (!digitFound) {
+            return Double.parseDouble(value);
+        }
+        double result = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -result : result;
+    }
+
+    static double parseHundredths(String value) {
+        return roundToHundredths(parseDouble(value));
+    }
+}
@@ -0,0 +1,52 @@
+package file.handling.parser;
+
+import lombok.Data;
+import lombok.val;
+
+//показатели одного разбора файла. Время этапов в наносекундах
+@Data
+public class ParseMetrics {
+    private long openNanos; //загрузка файла с сервера и открытие книги
+    private long decodeNanos; //чтение строк и разбор ячеек
+    private long closeNanos; //закрытие книги
+    private long rows;
+    private long cells;
+    private long bytesRead;
+    private int peakDataSize; //наибольшее число строк в наборе данных
+    private long cacheHits; //разборы, данные которых взяты из кэша локальных файлов
+
+    //методы add*Time добавляют время от начала этапа до текущего момента и возвращают текущий момент
+    long addOpenTime(long phaseStart) {
+        val now = System.nanoTime();
+        openNanos += now - phaseStart;
+        return now;
+    }
+
+    long addDecodeTime(long phaseStart) {
+        val now = System.nanoTime();
+        decodeNanos += now - phaseStart;
+        return now;
+    }
+
+    long addCloseTime(long phaseStart) {
+        val now = System.nanoTime();
+        closeNanos += now - phaseStart;
+        return now;
+    }
+
+    //набор данных может очищаться во время разбора, поэтому сохраняется наибольший размер
+    void updatePeakDataSize(int dataSize) {
+        peakDataSize = Math.max(peakDataSize, dataSize);
+    }
+
+    void add(ParseMetrics metrics) {
+        openNanos += metrics.openNanos;
+        decodeNanos += metrics.decodeNanos;
+        closeNanos += metrics.closeNanos;
+        rows += metrics.rows;
+        cells += metrics.cells;
+        bytesRead += metrics.bytesRead;
+        cacheHits += metrics.cacheHits;
+        peakDataSize = Math.max(peakDataSize, metrics.peakDataSize);
+    }
+}
@@ -0,0 +1,22 @@
+package file.handling.parser;
+
+//суммарные показатели всех разборов файлов за время работы программы
+public class ParseStatistics {
+    private static final ParseMetrics totalMetrics = new ParseMetrics();
+    private static long parseCount;
+
+    static synchronized void add(ParseMetrics metrics) {
+        totalMetrics.add(metrics);
+        parseCount++;
+    }
+
+    public static synchronized ParseMetrics getTotalMetrics() {
+        ParseMetrics metrics = new ParseMetrics();
+        metrics.add(totalMetrics);
+        return metrics;
+    }
+
+    public static synchronized long getParseCount() {
+        return parseCount;
+    }
+}
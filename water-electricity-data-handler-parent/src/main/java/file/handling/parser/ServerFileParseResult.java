@@ -1,10 +1,9 @@
 package file.handling.parser;
 
+import file.handling.util.RegionSet;
 import lombok.Builder;
 import lombok.Data;
 
-import java.util.List;
-
 @Data
 @Builder
 public class ServerFileParseResult {
@@ -12,5 +11,6 @@ public class ServerFileParseResult {
     private boolean clientHeadlineNotEqualsToServer;
     private boolean clientRegionAlreadyExistInServerFile;
     private String errorCellCode;
-    private List<Integer> serverFileRegions;
+    private RegionSet serverFileRegions;
+    private ParseMetrics parseMetrics;
 }
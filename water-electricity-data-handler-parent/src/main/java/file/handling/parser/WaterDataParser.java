@@ -1,157 +1,78 @@
 package file.handling.parser;
 
-import common.logger.LogCategory;
-import common.logger.Logger;
 import file.handling.model.WaterDataModel;
-import file.handling.parser.exception.CellParseException;
+import file.handling.model.WaterDataset;
+import file.handling.parser.reader.SheetCell;
 import lombok.Getter;
 import lombok.val;
-import org.apache.poi.hssf.util.CellReference;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.Row;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
-public class WaterDataParser extends BaseParser<WaterDataModel> {
+public class WaterDataParser extends BaseParser<WaterDataModel, WaterDataset> {
 
     @Getter
     private String period;
-    private int group;
 
     @Override
-    protected void parseLocalFileCell(int region, Row row, Cell cell) {
-        val rowNum = row.getRowNum();
-        val columnIndex = cell.getColumnIndex();
-        val cellRef = new CellReference(rowNum, columnIndex);
-        val arr = cellRef.formatAsString().split("\\D");
-        int stringNumber = 0;//номер строки, читаемой из файла
-        for (int i = 1; i < arr.length; i++) {
-            stringNumber += Integer.valueOf(arr[i]) * ((int) Math.pow(10, arr.length - i - 1));
-        }
-        if (rowNum == 2) {
-            if (columnIndex == 8 && period == null) {
-                period = cell.getStringCellValue();
-            }
-        }
-        //считывание строк с данными
-        if (stringNumber > 5) {
-            val waterDataModel = parseWaterDataModelForLocalFile(region, cell, cellRef);
-            if (waterDataModel != null) {
-                data.add(waterDataModel);
-            }
-        }
+    protected WaterDataModel createDataModel() {
+        return new WaterDataModel();
     }
 
     @Override
-    protected void parseServerFileCell(Row row, Cell cell) {
-        val rowNum = row.getRowNum();
-        val columnIndex = cell.getColumnIndex();
-        val cellRef = new CellReference(rowNum, columnIndex);
-        val cellCodeStringArray = cellRef.formatAsString().split("\\D");
-        int stringNumber = 0;//номер строки, читаемой из файла
-        for (int i = 1; i < cellCodeStringArray.length; i++) {
-            stringNumber = stringNumber +
-                    Integer.valueOf(cellCodeStringArray[i]) * ((int) Math.pow(10, cellCodeStringArray.length - i - 1));
-        }
+    protected WaterDataset createDataset() {
+        return new WaterDataset();
+    }
 
-        //считывание строк с данными
-        if (stringNumber > 5) {
-            val waterDataModel = parseWaterDataModelForServerFile(cell, cellRef);
-            if (waterDataModel != null) {
-                data.add(waterDataModel);
-            }
-        }
+    @Override
+    protected CellDecoder<WaterDataModel>[] createLocalFileDecoders() {
+        return decoders(
+                null,
+                this::parseWaterAddress,
+                this::parseWaterBiggestFloor,
+                this::parseWaterSmallestFloor,
+                this::parseWaterJoint,
+                this::parseWaterPeople,
+                this::parseColdWaterAccountingDevice,
+                this::parseHotWaterAccountingDevice,
+                this::parseExpenseHouseCold,
+                this::parseExpenseHouseHot,
+                this::parseWaterGroup);
     }
 
-    private WaterDataModel parseWaterDataModelForLocalFile(int region, Cell cell, CellReference cellRef) {
-        val waterDataModel = new WaterDataModel();
-        val cellCode = cellRef.formatAsString();
-        try {
-            val logger = Logger.getLogger(getClass().toString(), "parseWaterDataModelForLocalFile");
-            logger.log(LogCategory.DEBUG,
-                    "Parsing local xls water file. Cell address = '" + cellCode + "'");
-            waterDataModel.setRegion(region);
-            if (cellRef.formatAsString().matches("B.+")) {
-                if (cell.getCellTypeEnum().equals(CellType.STRING)) {
-                    waterDataModel.setAddress(cell.getRichStringCellValue().getString());
-                }
-            } else if (cellRef.formatAsString().matches("C.+")) {
-                parseWaterBiggestFloor(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("D.+")) {
-                parseWaterSmallestFloor(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("E.+")) {
-                parseWaterJoint(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("F.+")) {
-                parseWaterPeople(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("G.+")) {
-                parseColdWaterAccountingDevice(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("H.+")) {
-                parseHotWaterAccountingDevice(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("I.+")) {
-                parseExpenseHouseCold(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("J.+")) {
-                parseExpenseHouseHot(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("K.+")) {
-                parseWaterGroup(cell, waterDataModel);
-                if (waterDataModel.getGroup() == 0) {
-                    return null;
-                }
-            }
-        } catch (Exception e) {
-            throw new CellParseException(cellCode);
+    @Override
+    protected CellDecoder<WaterDataModel>[] createServerFileDecoders() {
+        return decoders(
+                null,
+                this::parseWaterAddress,
+                this::parseWaterBiggestFloor,
+                this::parseWaterSmallestFloor,
+                this::parseWaterJoint,
+                this::parseWaterPeople,
+                this::parseColdWaterAccountingDevice,
+                this::parseHotWaterAccountingDevice,
+                this::parseExpenseHouseCold,
+                this::parseExpenseHouseHot,
+                this::parseWaterRegion);
+    }
+
+    @Override
+    protected void parseLocalFileHeaderCell(SheetCell cell) {
+        if (cell.getRowIndex() == 2 && cell.getColumnIndex() == 8 && period == null) {
+            period = cell.getStringCellValue();
         }
-        return waterDataModel;
     }
 
-    private WaterDataModel parseWaterDataModelForServerFile(Cell cell, CellReference cellRef) {
-        val waterDataModel = new WaterDataModel();
-        val cellCode = cellRef.formatAsString();
-        val logger = Logger.getLogger(getClass().toString(), "parseWaterDataModelForServerFile");
-        logger.log(LogCategory.DEBUG,
-                "Parsing server water file. Cell address = '" + cellCode + "'");
-        try {
-            if (cellRef.formatAsString().matches("A.+")) {
-                if (cell.getCellType() == 1) {
-                    if (cell.getRichStringCellValue().getString().matches("\\d\\..+")) {
-                        group = Character.getNumericValue(
-                                cell.getRichStringCellValue().getString().charAt(0));
-                    }
-                }
-            } else if (cellRef.formatAsString().matches("B.+")) {
-                addGroupAndAddressToModel(group, cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("C.+")) {
-                parseWaterBiggestFloor(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("D.+")) {
-                parseWaterSmallestFloor(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("E.+")) {
-                parseWaterJoint(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("F.+")) {
-                parseWaterPeople(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("G.+")) {
-                parseColdWaterAccountingDevice(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("H.+")) {
-                parseHotWaterAccountingDevice(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("I.+")) {
-                parseExpenseHouseCold(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("J.+")) {
-                parseExpenseHouseHot(cell, waterDataModel);
-            } else if (cellRef.formatAsString().matches("K.+")) {
-                parseWaterRegion(cell, waterDataModel);
-            }
-        } catch (CellParseException e) {
-            throw new CellParseException(cellCode);
+    private void parseWaterAddress(SheetCell cell, WaterDataModel waterDataModel) {
+        if (cell.getCellTypeEnum() == CellType.STRING) {
+            waterDataModel.setAddress(cell.getStringCellValue());
         }
-        return waterDataModel;
     }
 
-    private void parseWaterBiggestFloor(Cell cell, WaterDataModel waterDataModel) {
+    private void parseWaterBiggestFloor(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
-                    waterDataModel.setBiggestFloor(Integer.valueOf(cell.getStringCellValue()));
+                    waterDataModel.setBiggestFloor(Integer.parseInt(cell.getStringCellValue()));
                 }
                 break;
             case Cell.CELL_TYPE_NUMERIC:
@@ -162,12 +83,12 @@ public class WaterDataParser extends BaseParser<WaterDataModel> {
         }
     }
 
-    private void parseWaterSmallestFloor(Cell cell, WaterDataModel waterDataModel) {
+    private void parseWaterSmallestFloor(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
                     waterDataModel
-                            .setSmallestFloor(Integer.valueOf(cell.getStringCellValue()));
+                            .setSmallestFloor(Integer.parseInt(cell.getStringCellValue()));
                 }
                 break;
             case Cell.CELL_TYPE_NUMERIC:
@@ -178,29 +99,26 @@ public class WaterDataParser extends BaseParser<WaterDataModel> {
         }
     }
 
-    private void parseWaterJoint(Cell cell, WaterDataModel waterDataModel) {
+    private void parseWaterJoint(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
-                    waterDataModel.setJoint(
-                            new BigDecimal(cell.getNumericCellValue()).setScale(2, RoundingMode.HALF_UP)
-                                    .doubleValue());
+                    waterDataModel.setJoint(NumberDecoder.parseHundredths(cell.getStringCellValue()));
                 }
                 break;
             case Cell.CELL_TYPE_NUMERIC:
                 if (cell.getNumericCellValue() != 0) {
-                    waterDataModel.setJoint(
-                            new BigDecimal(cell.getNumericCellValue()).setScale(2, RoundingMode.HALF_UP).doubleValue());
+                    waterDataModel.setJoint(NumberDecoder.roundToHundredths(cell.getNumericCellValue()));
                 }
                 break;
         }
     }
 
-    private void parseWaterGroup(Cell cell, WaterDataModel waterDataModel) {
+    private void parseWaterGroup(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
-                    waterDataModel.setGroup(Integer.valueOf(cell.getStringCellValue()));
+                    waterDataModel.setGroup(Integer.parseInt(cell.getStringCellValue()));
                 }
                 break;
             case Cell.CELL_TYPE_NUMERIC:
@@ -211,11 +129,11 @@ public class WaterDataParser extends BaseParser<WaterDataModel> {
         }
     }
 
-    private void parseWaterPeople(Cell cell, WaterDataModel waterDataModel) {
+    private void parseWaterPeople(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
-                    waterDataModel.setPeople(Integer.valueOf(cell.getStringCellValue()));
+                    waterDataModel.setPeople(Integer.parseInt(cell.getStringCellValue()));
                 }
                 break;
             case Cell.CELL_TYPE_NUMERIC:
@@ -226,7 +144,7 @@ public class WaterDataParser extends BaseParser<WaterDataModel> {
         }
     }
 
-    private void parseColdWaterAccountingDevice(Cell cell, WaterDataModel waterDataModel) {
+    private void parseColdWaterAccountingDevice(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
@@ -242,7 +160,7 @@ public class WaterDataParser extends BaseParser<WaterDataModel> {
         }
     }
 
-    private void parseHotWaterAccountingDevice(Cell cell, WaterDataModel waterDataModel) {
+    private void parseHotWaterAccountingDevice(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
@@ -252,53 +170,47 @@ public class WaterDataParser extends BaseParser<WaterDataModel> {
                 break;
             case Cell.CELL_TYPE_NUMERIC:
                 if (cell.getNumericCellValue() != 0) {
-                    waterDataModel.setHasColdWaterAccountingDevice(null);
+                    waterDataModel.setHasHotWaterAccountingDevice(null);
                 }
                 break;
         }
     }
 
-    private void parseExpenseHouseCold(Cell cell, WaterDataModel waterDataModel) {
+    private void parseExpenseHouseCold(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
-                    waterDataModel.setExpenseHouseCold(
-                            new BigDecimal(Double.valueOf(cell.getStringCellValue())).setScale(2, RoundingMode.HALF_UP)
-                                    .doubleValue());
+                    waterDataModel.setExpenseHouseCold(NumberDecoder.parseHundredths(cell.getStringCellValue()));
                 }
                 break;
             case Cell.CELL_TYPE_NUMERIC:
                 if (cell.getNumericCellValue() != 0) {
-                    waterDataModel.setExpenseHouseCold(
-                            new BigDecimal(cell.getNumericCellValue()).setScale(2, RoundingMode.HALF_UP).doubleValue());
+                    waterDataModel.setExpenseHouseCold(NumberDecoder.roundToHundredths(cell.getNumericCellValue()));
                 }
                 break;
         }
     }
 
-    private void parseExpenseHouseHot(Cell cell, WaterDataModel waterDataModel) {
+    private void parseExpenseHouseHot(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
-                    waterDataModel.setExpenseHouseHot(
-                            new BigDecimal(Double.valueOf(cell.getStringCellValue())).setScale(2, RoundingMode.HALF_UP)
-                                    .doubleValue());
+                    waterDataModel.setExpenseHouseHot(NumberDecoder.parseHundredths(cell.getStringCellValue()));
                 }
                 break;
             case Cell.CELL_TYPE_NUMERIC:
                 if (cell.getNumericCellValue() != 0) {
-                    waterDataModel.setExpenseHouseHot(
-                            new BigDecimal(cell.getNumericCellValue()).setScale(2, RoundingMode.HALF_UP).doubleValue());
+                    waterDataModel.setExpenseHouseHot(NumberDecoder.roundToHundredths(cell.getNumericCellValue()));
                 }
                 break;
         }
     }
 
-    private void parseWaterRegion(Cell cell, WaterDataModel waterDataModel) {
+    private void parseWaterRegion(SheetCell cell, WaterDataModel waterDataModel) {
         switch (cell.getCellType()) {
             case Cell.CELL_TYPE_STRING:
                 if (!cell.getStringCellValue().equals("")) {
-                    waterDataModel.setRegion(Integer.valueOf(cell.getStringCellValue()));
+                    waterDataModel.setRegion(Integer.parseInt(cell.getStringCellValue()));
                 }
                 break;
             case Cell.CELL_TYPE_NUMERIC:
@@ -309,20 +221,4 @@ public class WaterDataParser extends BaseParser<WaterDataModel> {
         }
     }
 
-    private void parseAddressWater(int group, Cell cell, WaterDataModel waterDataModel) {
-        switch (cell.getCellType()) {
-            case Cell.CELL_TYPE_STRING:
-                waterDataModel.setAddress(cell.getStringCellValue());
-                waterDataModel.setGroup(group);
-                break;
-            case Cell.CELL_TYPE_NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    waterDataModel.setAddress(null);
-                } else {
-                    waterDataModel.setAddress(null);
-                }
-                break;
-        }
-    }
-
-}
\ No newline at end of file
+}
@@ -1,10 +1,15 @@
 package file.handling.parser.exception;
 
+import file.handling.parser.CellError;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 @Getter
 @AllArgsConstructor
 public class CellParseException extends RuntimeException {
-    private String cellCode;
+    private CellError cellError;
+
+    public String getCellCode() {
+        return cellError.getCellCode();
+    }
 }
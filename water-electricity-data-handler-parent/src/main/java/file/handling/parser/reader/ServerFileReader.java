@@ -0,0 +1,35 @@
+package file.handling.parser.reader;
+
+import common.DataFileType;
+import file.handling.util.RegionSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+//чтение загруженного серверного файла. Формат определяется расширением имени файла
+public interface ServerFileReader extends Closeable {
+    static ServerFileReader open(String serverFileName, InputStream inputStream) throws IOException {
+        if (DataFileType.fromFileName(serverFileName) == DataFileType.XSLX) {
+            return new XlsxServerFileReader(inputStream);
+        }
+        return new XlsServerFileReader(inputStream);
+    }
+
+    //чтение заголовка и листа регионов без разбора строк с данными
+    void probe() throws IOException;
+
+    String getHeadline();
+
+    RegionSet getRegions();
+
+    //чтение строк первого листа
+    default void read(SheetRowHandler handler) throws IOException {
+        read(handler, null);
+    }
+
+    //чтение строк первого листа и листа регионов за один проход. Чтение прерывается, если заголовок файла
+    //не прошёл проверку headlineCheck (может быть null); в этом случае возвращается false
+    boolean read(SheetRowHandler handler, Predicate<String> headlineCheck) throws IOException;
+}
@@ -0,0 +1,126 @@
+package file.handling.parser.reader;
+
+import lombok.Getter;
+import lombok.val;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.util.CellReference;
+
+//значение ячейки листа, не зависящее от способа чтения файла. Объект переиспользуется читателем для всех ячеек
+public class SheetCell {
+    @Getter
+    private int rowIndex;
+    @Getter
+    private int columnIndex;
+
+    private CellType type;
+    private String stringValue;
+    private double numericValue;
+    private boolean booleanValue;
+
+    public CellType getCellTypeEnum() {
+        return type;
+    }
+
+    public int getCellType() {
+        return type.getCode();
+    }
+
+    public String getStringCellValue() {
+        if (type == CellType.BLANK) {
+            return "";
+        }
+        checkType(CellType.STRING);
+        return stringValue;
+    }
+
+    public double getNumericCellValue() {
+        if (type == CellType.BLANK) {
+            return 0;
+        }
+        checkType(CellType.NUMERIC);
+        return numericValue;
+    }
+
+    public boolean getBooleanCellValue() {
+        if (type == CellType.BLANK) {
+            return false;
+        }
+        checkType(CellType.BOOLEAN);
+        return booleanValue;
+    }
+
+    public String getAddress() {
+        return new CellReference(rowIndex, columnIndex, false, false).formatAsString();
+    }
+
+    //читатели переиспользуют один экземпляр ячейки, для сохранения строки нужна копия
+    public SheetCell copy() {
+        val copy = new SheetCell();
+        copy.rowIndex = rowIndex;
+        copy.columnIndex = columnIndex;
+        copy.type = type;
+        copy.stringValue = stringValue;
+        copy.numericValue = numericValue;
+        copy.booleanValue = booleanValue;
+        return copy;
+    }
+
+    void setPosition(int rowIndex, int columnIndex) {
+        this.rowIndex = rowIndex;
+        this.columnIndex = columnIndex;
+    }
+
+    void setString(String value) {
+        type = CellType.STRING;
+        stringValue = value;
+    }
+
+    void setNumeric(double value) {
+        type = CellType.NUMERIC;
+        numericValue = value;
+    }
+
+    void setBoolean(boolean value) {
+        type = CellType.BOOLEAN;
+        booleanValue = value;
+    }
+
+    void setBlank() {
+        type = CellType.BLANK;
+    }
+
+    void setError() {
+        type = CellType.ERROR;
+    }
+
+    //у формул берётся закэшированный результат
+    void setCell(Cell cell) {
+        setPosition(cell.getRowIndex(), cell.getColumnIndex());
+        val cellType = cell.getCellTypeEnum();
+        switch (cellType == CellType.FORMULA ? cell.getCachedFormulaResultTypeEnum() : cellType) {
+            case STRING:
+                setString(cell.getRichStringCellValue().getString());
+                break;
+            case NUMERIC:
+                setNumeric(cell.getNumericCellValue());
+                break;
+            case BOOLEAN:
+                setBoolean(cell.getBooleanCellValue());
+                break;
+            case ERROR:
+                setError();
+                break;
+            default:
+                setBlank();
+                break;
+        }
+    }
+
+    private void checkType(CellType expectedType) {
+        if (type != expectedType) {
+            throw new IllegalStateException(
+                    "Cannot get a " + expectedType + " value from a " + type + " cell " + getAddress());
+        }
+    }
+}
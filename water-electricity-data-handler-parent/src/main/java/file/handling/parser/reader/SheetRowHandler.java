@@ -0,0 +1,9 @@
+package file.handling.parser.reader;
+
+public interface SheetRowHandler {
+    void startRow(int rowNum);
+
+    void cell(SheetCell cell);
+
+    void endRow(int rowNum);
+}
@@ -0,0 +1,21 @@
+package file.handling.parser.reader;
+
+import lombok.val;
+import org.apache.poi.ss.usermodel.Sheet;
+
+//чтение листа уже загруженной книги (usermodel)
+public class WorkbookSheetReader {
+    private final SheetCell sheetCell = new SheetCell();
+
+    public void read(Sheet sheet, SheetRowHandler handler) {
+        for (val row : sheet) {
+            val rowNum = row.getRowNum();
+            handler.startRow(rowNum);
+            for (val cell : row) {
+                sheetCell.setCell(cell);
+                handler.cell(sheetCell);
+            }
+            handler.endRow(rowNum);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package file.handling.parser.reader;
+
+import file.handling.util.RegionSet;
+import file.handling.util.RegionsUtils;
+import lombok.Getter;
+import lombok.val;
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+//чтение серверного .xls файла по записям (HSSF event model) без построения книги в памяти.
+//За один проход читаются строки первого листа, заголовок файла и лист регионов. Чтение прерывается,
+//как только заголовок файла (ячейка A1 первого листа) не прошёл проверку
+public class XlsEventWorkbookReader {
+    private static final int DATA_SHEET_INDEX = 0;
+    private static final int REGIONS_SHEET_INDEX = 1;
+
+    @Getter
+    private String headline;
+
+    private final RegionSet.Builder existedRegions = new RegionSet.Builder();
+
+    //handler может быть null, если строки первого листа не нужны
+    public void read(InputStream inputStream, SheetRowHandler handler) throws IOException {
+        val fileSystem = new POIFSFileSystem(inputStream);
+        try {
+            read(fileSystem, handler);
+        } finally {
+            fileSystem.close();
+        }
+    }
+
+    public void read(POIFSFileSystem fileSystem, SheetRowHandler handler) throws IOException {
+        read(fileSystem, handler, null);
+    }
+
+    //headlineCheck может быть null; возвращает false, если заголовок не прошёл проверку и чтение прервано
+    public boolean read(POIFSFileSystem fileSystem, SheetRowHandler handler, Predicate<String> headlineCheck)
+    throws IOException {
+        val listener = new WorkbookRecordListener(handler, headlineCheck, false);
+        processRecords(listener, openWorkbookStream(fileSystem), -1);
+        return !listener.headlineRejected;
+    }
+
+    //быстрая проверка файла: из первого листа читается только заголовок, лист регионов читается
+    //с его смещения в потоке книги из записи BOUNDSHEET, строки с данными не разбираются
+    public void probe(POIFSFileSystem fileSystem) throws IOException {
+        val listener = new WorkbookRecordListener(null, null, true);
+        processRecords(listener, openWorkbookStream(fileSystem), -1);
+        if (listener.boundSheets.size() <= REGIONS_SHEET_INDEX) {
+            return;
+        }
+        val regionsSheetStream = openWorkbookStream(fileSystem);
+        val regionsSheetOffset = listener.boundSheets.get(REGIONS_SHEET_INDEX).getPositionOfBof();
+        if (regionsSheetStream.skip(regionsSheetOffset) != regionsSheetOffset) {
+            throw new IOException("Regions sheet offset " + regionsSheetOffset + " is out of workbook stream");
+        }
+        processRecords(listener, regionsSheetStream, REGIONS_SHEET_INDEX - 1);
+    }
+
+    public RegionSet getRegions() {
+        return existedRegions.build();
+    }
+
+    private static InputStream openWorkbookStream(POIFSFileSystem fileSystem) throws IOException {
+        val root = fileSystem.getRoot();
+        return root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root));
+    }
+
+    //sheetIndex - номер листа перед первой записью потока
+    private static void processRecords(WorkbookRecordListener listener, InputStream workbookStream, int sheetIndex)
+    throws IOException {
+        listener.sheetIndex = sheetIndex;
+        val request = new HSSFRequest();
+        request.addListenerForAllRecords(listener);
+        try {
+            new HSSFEventFactory().abortableProcessEvents(request, workbookStream);
+        } catch (HSSFUserException e) {
+            throw new IOException(e);
+        } finally {
+            workbookStream.close();
+        }
+    }
+
+    private class WorkbookRecordListener extends AbortableHSSFListener {
+        private final SheetRowHandler handler;
+        private final Predicate<String> headlineCheck;
+        //чтение прерывается после заголовка файла
+        private final boolean headlineOnly;
+        private final SheetCell sheetCell = new SheetCell();
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+
+        private SSTRecord sstRecord;
+        private int sheetIndex;
+        private int currentRow = -1;
+        private boolean formulaStringExpected;
+        private boolean headlineRead;
+        private boolean headlineRejected;
+
+        WorkbookRecordListener(SheetRowHandler handler, Predicate<String> headlineCheck, boolean headlineOnly) {
+            this.handler = handler;
+            this.headlineCheck = headlineCheck;
+            this.headlineOnly = headlineOnly;
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            processWorkbookRecord(record);
+            //после листа регионов в книге нет нужных данных
+            val stopped = headlineRejected || (headlineOnly && headlineRead && sheetIndex == DATA_SHEET_INDEX)
+                    || (sheetIndex == REGIONS_SHEET_INDEX && record.getSid() == EOFRecord.sid);
+            return (short) (stopped ? 1 : 0);
+        }
+
+        private void processWorkbookRecord(Record record) {
+            switch (record.getSid()) {
+                case BOFRecord.sid:
+                    if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                        sheetIndex++;
+                        currentRow = -1;
+                    }
+                    break;
+                case EOFRecord.sid:
+                    if (sheetIndex == DATA_SHEET_INDEX) {
+                        //в листе нет ячеек или первая ячейка не A1
+                        if (!headlineRead) {
+                            checkHeadline(null);
+                        } else if (currentRow >= 0 && handler != null) {
+                            handler.endRow(currentRow);
+                        }
+                    }
+                    currentRow = -1;
+                    break;
+                case BoundSheetRecord.sid:
+                    boundSheets.add((BoundSheetRecord) record);
+                    break;
+                case SSTRecord.sid:
+                    sstRecord = (SSTRecord) record;
+                    break;
+                case LabelSSTRecord.sid:
+                    val labelSSTRecord = (LabelSSTRecord) record;
+                    sheetCell.setPosition(labelSSTRecord.getRow(), labelSSTRecord.getColumn());
+                    sheetCell.setString(sstRecord.getString(labelSSTRecord.getSSTIndex()).getString());
+                    processCell();
+                    break;
+                case LabelRecord.sid:
+                    val labelRecord = (LabelRecord) record;
+                    sheetCell.setPosition(labelRecord.getRow(), labelRecord.getColumn());
+                    sheetCell.setString(labelRecord.getValue());
+                    processCell();
+                    break;
+                case NumberRecord.sid:
+                    val numberRecord = (NumberRecord) record;
+                    sheetCell.setPosition(numberRecord.getRow(), numberRecord.getColumn());
+                    sheetCell.setNumeric(numberRecord.getValue());
+                    processCell();
+                    break;
+                case RKRecord.sid:
+                    val rkRecord = (RKRecord) record;
+                    sheetCell.setPosition(rkRecord.getRow(), rkRecord.getColumn());
+                    sheetCell.setNumeric(rkRecord.getRKNumber());
+                    processCell();
+                    break;
+                case MulRKRecord.sid:
+                    val mulRKRecord = (MulRKRecord) record;
+                    for (int i = 0; i < mulRKRecord.getNumColumns(); i++) {
+                        sheetCell.setPosition(mulRKRecord.getRow(), mulRKRecord.getFirstColumn() + i);
+                        sheetCell.setNumeric(mulRKRecord.getRKNumberAt(i));
+                        processCell();
+                    }
+                    break;
+                case BoolErrRecord.sid:
+                    val boolErrRecord = (BoolErrRecord) record;
+                    sheetCell.setPosition(boolErrRecord.getRow(), boolErrRecord.getColumn());
+                    if (boolErrRecord.isBoolean()) {
+                        sheetCell.setBoolean(boolErrRecord.getBooleanValue());
+                    } else {
+                        sheetCell.setError();
+                    }
+                    processCell();
+                    break;
+                case BlankRecord.sid:
+                    val blankRecord = (BlankRecord) record;
+                    sheetCell.setPosition(blankRecord.getRow(), blankRecord.getColumn());
+                    sheetCell.setBlank();
+                    processCell();
+                    break;
+                case MulBlankRecord.sid:
+                    val mulBlankRecord = (MulBlankRecord) record;
+                    for (int i = 0; i < mulBlankRecord.getNumColumns(); i++) {
+                        sheetCell.setPosition(mulBlankRecord.getRow(), mulBlankRecord.getFirstColumn() + i);
+                        sheetCell.setBlank();
+                        processCell();
+                    }
+                    break;
+                case FormulaRecord.sid:
+                    processFormula((FormulaRecord) record);
+                    break;
+                case StringRecord.sid:
+                    //строковый результат формулы идёт следующей записью после неё
+                    if (formulaStringExpected) {
+                        formulaStringExpected = false;
+                        sheetCell.setString(((StringRecord) record).getString());
+                        processCell();
+                    }
+                    break;
+            }
+        }
+
+        private void processFormula(FormulaRecord formulaRecord) {
+            sheetCell.setPosition(formulaRecord.getRow(), formulaRecord.getColumn());
+            switch (CellType.forInt(formulaRecord.getCachedResultType())) {
+                case STRING:
+                    formulaStringExpected = true;
+                    return;
+                case NUMERIC:
+                    sheetCell.setNumeric(formulaRecord.getValue());
+                    break;
+                case BOOLEAN:
+                    sheetCell.setBoolean(formulaRecord.getCachedBooleanValue());
+                    break;
+                case ERROR:
+                    sheetCell.setError();
+                    break;
+                default:
+                    sheetCell.setBlank();
+                    break;
+            }
+            processCell();
+        }
+
+        private void processCell() {
+            switch (sheetIndex) {
+                case DATA_SHEET_INDEX:
+                    processDataSheetCell();
+                    break;
+                case REGIONS_SHEET_INDEX:
+                    processRegionsSheetCell();
+                    break;
+            }
+        }
+
+        private void processDataSheetCell() {
+            val rowIndex = sheetCell.getRowIndex();
+            //ячейки листа идут по строкам и столбцам, A1 может быть только первой
+            if (!headlineRead) {
+                val headlineCell = rowIndex == 0 && sheetCell.getColumnIndex() == 0
+                        && sheetCell.getCellTypeEnum() == CellType.STRING;
+                checkHeadline(headlineCell ? sheetCell.getStringCellValue() : null);
+            }
+            if (handler == null || headlineRejected || headlineOnly) {
+                return;
+            }
+            if (rowIndex != currentRow) {
+                if (currentRow >= 0) {
+                    handler.endRow(currentRow);
+                }
+                currentRow = rowIndex;
+                handler.startRow(rowIndex);
+            }
+            handler.cell(sheetCell);
+        }
+
+        private void checkHeadline(String value) {
+            headline = value;
+            headlineRead = true;
+            headlineRejected = headlineCheck != null && !headlineCheck.test(value);
+        }
+
+        private void processRegionsSheetCell() {
+            if (sheetCell.getCellTypeEnum() == CellType.BOOLEAN && sheetCell.getBooleanCellValue()) {
+                val region = RegionsUtils.getRegion(sheetCell.getRowIndex(), sheetCell.getColumnIndex());
+                if (region != RegionsUtils.NO_REGION) {
+                    existedRegions.add(region);
+                }
+            }
+        }
+    }
+}
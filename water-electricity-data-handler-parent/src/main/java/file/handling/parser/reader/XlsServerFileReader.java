@@ -0,0 +1,42 @@
+package file.handling.parser.reader;
+
+import file.handling.util.RegionSet;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+class XlsServerFileReader implements ServerFileReader {
+    private final POIFSFileSystem fileSystem;
+    private final XlsEventWorkbookReader workbookReader = new XlsEventWorkbookReader();
+
+    XlsServerFileReader(InputStream inputStream) throws IOException {
+        fileSystem = new POIFSFileSystem(inputStream);
+    }
+
+    @Override
+    public void probe() throws IOException {
+        workbookReader.probe(fileSystem);
+    }
+
+    @Override
+    public String getHeadline() {
+        return workbookReader.getHeadline();
+    }
+
+    @Override
+    public RegionSet getRegions() {
+        return workbookReader.getRegions();
+    }
+
+    @Override
+    public boolean read(SheetRowHandler handler, Predicate<String> headlineCheck) throws IOException {
+        return workbookReader.read(fileSystem, handler, headlineCheck);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileSystem.close();
+    }
+}
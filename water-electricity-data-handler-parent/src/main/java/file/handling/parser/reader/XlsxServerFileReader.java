@@ -0,0 +1,80 @@
+package file.handling.parser.reader;
+
+import file.handling.util.RegionSet;
+import lombok.Getter;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Predicate;
+
+//загруженный файл сохраняется во временный: пакет, открытый из файла, читает листы по мере разбора,
+//а открытый из потока распаковывает их в память целиком
+class XlsxServerFileReader implements ServerFileReader {
+    private static final String TEMPORARY_FILE_PREFIX = "server-file";
+    private static final String TEMPORARY_FILE_SUFFIX = ".xlsx";
+
+    private final File temporaryFile;
+    private final XlsxStreamingSheetReader sheetReader;
+
+    @Getter
+    private String headline;
+
+    @Getter
+    private RegionSet regions;
+
+    XlsxServerFileReader(InputStream inputStream) throws IOException {
+        temporaryFile = File.createTempFile(TEMPORARY_FILE_PREFIX, TEMPORARY_FILE_SUFFIX);
+        try {
+            Files.copy(inputStream, temporaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            sheetReader = new XlsxStreamingSheetReader(temporaryFile);
+        } catch (IOException | OpenXML4JException | SAXException | RuntimeException e) {
+            deleteTemporaryFile();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+    }
+
+    @Override
+    public void probe() throws IOException {
+        try {
+            headline = sheetReader.readHeadline();
+            regions = sheetReader.readRegions();
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    //листы .xlsx - отдельные части пакета: заголовок читается до первой строки с данными,
+    //лист регионов - после проверки заголовка
+    @Override
+    public boolean read(SheetRowHandler handler, Predicate<String> headlineCheck) throws IOException {
+        try {
+            headline = sheetReader.readHeadline();
+            if (headlineCheck != null && !headlineCheck.test(headline)) {
+                return false;
+            }
+            regions = sheetReader.readRegions();
+            sheetReader.read(handler);
+            return true;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        sheetReader.close();
+        deleteTemporaryFile();
+    }
+
+    private void deleteTemporaryFile() {
+        if (!temporaryFile.delete()) {
+            temporaryFile.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package file.handling.parser.reader;
+
+import file.handling.util.RegionSet;
+import file.handling.util.RegionsUtils;
+import lombok.val;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+//потоковое чтение листов .xlsx файла (XSSF event model) без построения книги в памяти
+public class XlsxStreamingSheetReader implements Closeable {
+    private static final int DATA_SHEET_INDEX = 0;
+    private static final int REGIONS_SHEET_INDEX = 1;
+
+    private final OPCPackage opcPackage;
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final XSSFReader xssfReader;
+
+    public XlsxStreamingSheetReader(File file) throws IOException, OpenXML4JException, SAXException {
+        opcPackage = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            sharedStrings = new ReadOnlySharedStringsTable(opcPackage);
+            xssfReader = new XSSFReader(opcPackage);
+        } catch (IOException | OpenXML4JException | SAXException | RuntimeException e) {
+            opcPackage.revert();
+            throw e;
+        }
+    }
+
+    public void read(SheetRowHandler handler)
+    throws IOException, InvalidFormatException, SAXException, ParserConfigurationException {
+        read(DATA_SHEET_INDEX, handler, Integer.MAX_VALUE);
+    }
+
+    //чтение только ячейки A1, разбор листа прекращается после первой строки
+    public String readHeadline() throws IOException, InvalidFormatException, SAXException, ParserConfigurationException {
+        val headlineHandler = new HeadlineRowHandler();
+        read(DATA_SHEET_INDEX, headlineHandler, 0);
+        return headlineHandler.headline;
+    }
+
+    //регионы из второго листа серверного файла
+    public RegionSet readRegions()
+    throws IOException, InvalidFormatException, SAXException, ParserConfigurationException {
+        val regionsHandler = new RegionsRowHandler();
+        read(REGIONS_SHEET_INDEX, regionsHandler, Integer.MAX_VALUE);
+        return regionsHandler.existedRegions.build();
+    }
+
+    @Override
+    public void close() {
+        opcPackage.revert();
+    }
+
+    private void read(int sheetIndex, SheetRowHandler handler, int lastRowNumber)
+    throws IOException, InvalidFormatException, SAXException, ParserConfigurationException {
+        val sheets = xssfReader.getSheetsData();
+        for (int i = 0; i < sheetIndex && sheets.hasNext(); i++) {
+            sheets.next().close();
+        }
+        if (!sheets.hasNext()) {
+            return;
+        }
+        try (val sheetStream = sheets.next()) {
+            val xmlReader = SAXHelper.newXMLReader();
+            xmlReader.setContentHandler(new SheetContentHandler(sharedStrings, handler, lastRowNumber));
+            xmlReader.parse(new InputSource(sheetStream));
+        } catch (ReadingStoppedException ignored) {
+            //нужные строки уже прочитаны
+        }
+    }
+
+    private static class ReadingStoppedException extends SAXException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static class HeadlineRowHandler implements SheetRowHandler {
+        private String headline;
+
+        @Override
+        public void startRow(int rowIndex) {
+        }
+
+        @Override
+        public void cell(SheetCell cell) {
+            if (cell.getRowIndex() == 0 && cell.getColumnIndex() == 0 && cell.getCellTypeEnum() == CellType.STRING) {
+                headline = cell.getStringCellValue();
+            }
+        }
+
+        @Override
+        public void endRow(int rowIndex) {
+        }
+    }
+
+    private static class RegionsRowHandler implements SheetRowHandler {
+        private final RegionSet.Builder existedRegions = new RegionSet.Builder();
+
+        @Override
+        public void startRow(int rowIndex) {
+        }
+
+        @Override
+        public void cell(SheetCell cell) {
+            if (cell.getCellTypeEnum() == CellType.BOOLEAN && cell.getBooleanCellValue()) {
+                val region = RegionsUtils.getRegion(cell.getRowIndex(), cell.getColumnIndex());
+                if (region != RegionsUtils.NO_REGION) {
+                    existedRegions.add(region);
+                }
+            }
+        }
+
+        @Override
+        public void endRow(int rowIndex) {
+        }
+    }
+
+    private static class SheetContentHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final SheetRowHandler handler;
+        private final int lastRowNumber;
+        private final SheetCell sheetCell = new SheetCell();
+        private final StringBuilder value = new StringBuilder();
+
+        private int rowNum = -1;
+        private int columnIndex;
+        private String cellType;
+        private boolean valueStarted;
+
+        SheetContentHandler(ReadOnlySharedStringsTable sharedStrings, SheetRowHandler handler, int lastRowNumber) {
+            this.sharedStrings = sharedStrings;
+            this.handler = handler;
+            this.lastRowNumber = lastRowNumber;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    val rowReference = attributes.getValue("r");
+                    rowNum = rowReference == null ? rowNum + 1 : Integer.parseInt(rowReference) - 1;
+                    columnIndex = -1;
+                    handler.startRow(rowNum);
+                    break;
+                case "c":
+                    val cellReference = attributes.getValue("r");
+                    columnIndex = cellReference == null ? columnIndex + 1 : parseColumnIndex(cellReference);
+                    cellType = attributes.getValue("t");
+                    value.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    valueStarted = true;
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (valueStarted) {
+                value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    valueStarted = false;
+                    break;
+                case "c":
+                    sheetCell.setPosition(rowNum, columnIndex);
+                    fillCellValue();
+                    handler.cell(sheetCell);
+                    break;
+                case "row":
+                    handler.endRow(rowNum);
+                    if (rowNum >= lastRowNumber) {
+                        throw new ReadingStoppedException();
+                    }
+                    break;
+            }
+        }
+
+        private void fillCellValue() {
+            if (cellType == null || cellType.equals("n")) {
+                if (value.length() == 0) {
+                    sheetCell.setBlank();
+                } else {
+                    sheetCell.setNumeric(Double.parseDouble(value.toString()));
+                }
+                return;
+            }
+            switch (cellType) {
+                case "s":
+                    sheetCell.setString(sharedStrings.getEntryAt(Integer.parseInt(value.toString())));
+                    break;
+                case "inlineStr":
+                case "str":
+                    sheetCell.setString(value.toString());
+                    break;
+                case "b":
+                    sheetCell.setBoolean(value.length() > 0 && value.charAt(0) == '1');
+                    break;
+                default:
+                    sheetCell.setError();
+                    break;
+            }
+        }
+
+        //"AB12" -> 27
+        private static int parseColumnIndex(String cellReference) {
+            int columnIndex = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                val c = cellReference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                columnIndex = columnIndex * 26 + (c - 'A' + 1);
+            }
+            return columnIndex - 1;
+        }
+    }
+}
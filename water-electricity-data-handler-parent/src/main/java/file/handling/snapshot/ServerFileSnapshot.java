@@ -0,0 +1,183 @@
+package file.handling.snapshot;
+
+import common.logger.LogCategory;
+import common.logger.Logger;
+import file.handling.model.BaseDataset;
+import file.handling.util.RegionSet;
+import lombok.Getter;
+import lombok.val;
+import org.apache.poi.util.IOUtils;
+import server.connector.ftp.FTPConnector;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+//снимок данных серверного файла: заголовок таблицы, регионы и строки данных по столбцам.
+//Хранится на FTP сервере рядом с серверным файлом и читается без разбора книги. Снимок привязан
+//к версии серверного файла (время изменения и размер на сервере) и используется, только пока
+//серверный файл не изменён. Если снимка нет или он устарел, читается сам серверный файл
+public class ServerFileSnapshot {
+    @Getter
+    private final String headline;
+    @Getter
+    private final RegionSet regions;
+
+    //данные записываемого снимка
+    private BaseDataset<?> data;
+    private int[] rows;
+
+    //данные прочитанного снимка
+    private String datasetClassName;
+    private DataInputStream columnsInput;
+    @Getter
+    private long size;
+
+    public ServerFileSnapshot(String headline, RegionSet regions, BaseDataset<?> data, int[] rows) {
+        this.headline = headline;
+        this.regions = regions;
+        this.data = data;
+        this.rows = rows;
+    }
+
+    private ServerFileSnapshot(String headline, RegionSet regions, String datasetClassName,
+                               DataInputStream columnsInput, long size) {
+        this.headline = headline;
+        this.regions = regions;
+        this.datasetClassName = datasetClassName;
+        this.columnsInput = columnsInput;
+        this.size = size;
+    }
+
+    public static String getSnapshotFileName(String serverFileName) {
+        return serverFileName + ServerFileSnapshotFormat.FILE_NAME_SUFFIX;
+    }
+
+    //снимок записывается после серверного файла и получает его текущую версию. Если версию получить
+    //не удалось, снимок не записывается: прежний снимок останется с версией старого файла и не будет прочитан.
+    //Ошибка записи снимка не считается ошибкой изменения серверного файла
+    public void send(String serverFileName) {
+        val logger = Logger.getLogger(getClass().getName(), "send");
+        val ftpConnector = new FTPConnector();
+        val serverFileVersion = ftpConnector.getFileVersion(serverFileName);
+        if (serverFileVersion == null) {
+            logger.log(LogCategory.INFO, "Snapshot of file '" + serverFileName + "' wasn't sent: no file version");
+            return;
+        }
+        if (!ftpConnector.sendFile(getSnapshotFileName(serverFileName),
+                outputStream -> write(outputStream, serverFileVersion))) {
+            logger.log(LogCategory.ERROR, "Snapshot of file '" + serverFileName + "' wasn't sent");
+        }
+    }
+
+    //снимок серверного файла или null, если снимка нет, он повреждён или не соответствует серверному файлу
+    public static ServerFileSnapshot receive(String serverFileName) {
+        val logger = Logger.getLogger(ServerFileSnapshot.class.getName(), "receive");
+        val ftpConnector = new FTPConnector();
+        val inputStream = ftpConnector.getInputFileStream(getSnapshotFileName(serverFileName));
+        if (inputStream == null) {
+            return null;
+        }
+        try {
+            val bytes = IOUtils.toByteArray(inputStream);
+            val input = openChecked(bytes);
+            val snapshotVersion = readString(input);
+            val serverFileVersion = ftpConnector.getFileVersion(serverFileName);
+            if (!snapshotVersion.equals(serverFileVersion)) {
+                logger.log(LogCategory.INFO, "Snapshot of file '" + serverFileName + "' is outdated");
+                return null;
+            }
+            val datasetClassName = readString(input);
+            val headline = input.readBoolean() ? readString(input) : null;
+            val words = new long[input.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = input.readLong();
+            }
+            return new ServerFileSnapshot(headline, RegionSet.valueOf(words), datasetClassName, input, bytes.length);
+        } catch (IOException | RuntimeException e) {
+            logger.log(LogCategory.ERROR, "Error during reading snapshot of file '" + serverFileName + "': " + e);
+            return null;
+        }
+    }
+
+    //снимок может быть прочитан только в набор данных того же класса, что и записанный
+    public boolean isReadableTo(BaseDataset<?> target) {
+        return target.getClass().getName().equals(datasetClassName);
+    }
+
+    //строки снимка добавляются в конец набора данных. Строки читаются один раз
+    public void readData(BaseDataset<?> target) throws IOException {
+        if (columnsInput == null || !isReadableTo(target)) {
+            throw new IOException("Snapshot data can't be read to " + target.getClass().getName());
+        }
+        val input = columnsInput;
+        columnsInput = null;
+        target.readColumns(input);
+    }
+
+    private void write(OutputStream outputStream, String serverFileVersion) throws IOException {
+        val checkedStream = new CheckedOutputStream(outputStream, new CRC32());
+        val output = new DataOutputStream(checkedStream);
+        output.writeInt(ServerFileSnapshotFormat.MAGIC);
+        output.writeShort(ServerFileSnapshotFormat.VERSION);
+        writeString(output, serverFileVersion);
+        writeString(output, data.getClass().getName());
+        output.writeBoolean(headline != null);
+        if (headline != null) {
+            writeString(output, headline);
+        }
+        val words = regions.toLongArray();
+        output.writeInt(words.length);
+        for (long word : words) {
+            output.writeLong(word);
+        }
+        data.writeColumns(output, rows);
+        output.flush();
+        //контрольная сумма не входит в саму себя
+        outputStream.write(ByteBuffer.allocate(ServerFileSnapshotFormat.CHECKSUM_SIZE)
+                .putLong(checkedStream.getChecksum().getValue()).array());
+    }
+
+    //проверка контрольной суммы и заголовка, поток читает данные после заголовка
+    private static DataInputStream openChecked(byte[] bytes) throws IOException {
+        val dataSize = bytes.length - ServerFileSnapshotFormat.CHECKSUM_SIZE;
+        if (dataSize < ServerFileSnapshotFormat.HEADER_SIZE) {
+            throw new IOException("Not a server file snapshot");
+        }
+        val checksum = new CRC32();
+        checksum.update(bytes, 0, dataSize);
+        if (checksum.getValue() != ByteBuffer.wrap(bytes, dataSize, ServerFileSnapshotFormat.CHECKSUM_SIZE).getLong()) {
+            throw new IOException("Wrong snapshot checksum");
+        }
+        val input = new DataInputStream(new ByteArrayInputStream(bytes, 0, dataSize));
+        if (input.readInt() != ServerFileSnapshotFormat.MAGIC
+                || input.readShort() != ServerFileSnapshotFormat.VERSION) {
+            throw new IOException("Not a server file snapshot");
+        }
+        return input;
+    }
+
+    private static void writeString(DataOutput output, String value) throws IOException {
+        val bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        val length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Wrong string length: " + length);
+        }
+        val bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
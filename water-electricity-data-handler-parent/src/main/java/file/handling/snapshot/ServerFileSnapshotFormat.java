@@ -0,0 +1,23 @@
+package file.handling.snapshot;
+
+//формат файла снимка серверного файла. Все числа записываются в порядке big-endian (DataOutput):
+//  заголовок: MAGIC (int), VERSION (short)
+//  версия серверного файла на FTP сервере (строка)
+//  класс набора данных (строка)
+//  признак наличия заголовка таблицы (boolean), заголовок таблицы (строка)
+//  регионы: число слов (int), слова RegionSet (long)
+//  строки данных по столбцам (BaseDataset.writeColumns)
+//  CRC32 всех предыдущих байт (long)
+//Строка - длина в байтах (int) и байты в UTF-8
+final class ServerFileSnapshotFormat {
+    static final int MAGIC = 0x57454453;
+    static final short VERSION = 1;
+
+    static final String FILE_NAME_SUFFIX = ".bin";
+
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+    static final int CHECKSUM_SIZE = Long.BYTES;
+
+    private ServerFileSnapshotFormat() {
+    }
+}
@@ -3,5 +3,6 @@ package file.handling.util;
 public enum HandlingType {
     CREATE,
     MODIFY,
+    MODIFY_WITH_LOCAL_FILES,
     DELETE_REGION
 }
@@ -0,0 +1,172 @@
+package file.handling.util;
+
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//неизменяемое множество номеров регионов. Регион с номером n - бит n в массиве слов, поэтому
+//проверка региона выполняется за постоянное время, а объединение и разность - за один проход по словам.
+//Операции возвращают новое множество, одно множество можно использовать из нескольких потоков
+public final class RegionSet {
+    public static final RegionSet EMPTY = new RegionSet(new long[0]);
+
+    private static final int WORD_SIZE = Long.SIZE;
+
+    //последнее слово всегда ненулевое, поэтому равные множества имеют одинаковые массивы
+    private final long[] words;
+
+    private RegionSet(long[] words) {
+        this.words = words;
+    }
+
+    public static RegionSet of(int... regions) {
+        val builder = new Builder();
+        for (int region : regions) {
+            builder.add(region);
+        }
+        return builder.build();
+    }
+
+    //множество по словам, полученным toLongArray
+    public static RegionSet valueOf(long[] words) {
+        return create(Arrays.copyOf(words, words.length));
+    }
+
+    public boolean contains(int region) {
+        if (region < 0) {
+            return false;
+        }
+        val wordIndex = region / WORD_SIZE;
+        return wordIndex < words.length && (words[wordIndex] & (1L << region)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    //наибольший номер региона, для пустого множества -1
+    public int getMaxRegion() {
+        if (words.length == 0) {
+            return -1;
+        }
+        val lastWord = words.length - 1;
+        return lastWord * WORD_SIZE + WORD_SIZE - 1 - Long.numberOfLeadingZeros(words[lastWord]);
+    }
+
+    public RegionSet union(RegionSet other) {
+        if (other.words.length > words.length) {
+            return other.union(this);
+        }
+        val result = Arrays.copyOf(words, words.length);
+        for (int i = 0; i < other.words.length; i++) {
+            result[i] |= other.words[i];
+        }
+        return new RegionSet(result);
+    }
+
+    public RegionSet difference(RegionSet other) {
+        val result = Arrays.copyOf(words, words.length);
+        for (int i = 0; i < Math.min(result.length, other.words.length); i++) {
+            result[i] &= ~other.words[i];
+        }
+        return create(result);
+    }
+
+    public RegionSet intersection(RegionSet other) {
+        val result = Arrays.copyOf(words, Math.min(words.length, other.words.length));
+        for (int i = 0; i < result.length; i++) {
+            result[i] &= other.words[i];
+        }
+        return create(result);
+    }
+
+    public boolean intersects(RegionSet other) {
+        for (int i = 0; i < Math.min(words.length, other.words.length); i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(words, words.length);
+    }
+
+    //номера регионов по возрастанию
+    public List<Integer> toList() {
+        List<Integer> regions = new ArrayList<>(size());
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                regions.add(i * WORD_SIZE + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return regions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RegionSet && Arrays.equals(words, ((RegionSet) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    //отбрасывание нулевых слов в конце массива
+    private static RegionSet create(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        if (length == 0) {
+            return EMPTY;
+        }
+        return new RegionSet(length == words.length ? words : Arrays.copyOf(words, length));
+    }
+
+    //заполнение множества одной операцией, например при чтении листа регионов или построении файла.
+    //Построитель не потокобезопасен, готовое множество не зависит от дальнейших изменений построителя
+    public static class Builder {
+        private long[] words = new long[0];
+
+        public Builder add(int region) {
+            if (region < 0) {
+                throw new IllegalArgumentException("Region must not be negative: " + region);
+            }
+            val wordIndex = region / WORD_SIZE;
+            if (wordIndex >= words.length) {
+                words = Arrays.copyOf(words, Math.max(wordIndex + 1, words.length * 2));
+            }
+            words[wordIndex] |= 1L << region;
+            return this;
+        }
+
+        public boolean contains(int region) {
+            val wordIndex = region / WORD_SIZE;
+            return region >= 0 && wordIndex < words.length && (words[wordIndex] & (1L << region)) != 0;
+        }
+
+        public RegionSet build() {
+            return create(Arrays.copyOf(words, words.length));
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package file.handling.util;
 
 import common.DataFileType;
+import file.handling.parser.reader.ServerFileReader;
+import file.handling.snapshot.ServerFileSnapshot;
 import lombok.val;
 import org.apache.poi.ss.usermodel.*;
 import server.connector.ftp.FTPConnector;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
 
 public class RegionsUtils {
-    public static final boolean[] EMPTY_REGIONS = new boolean[70];
+    //лист регионов: пары строк с номерами регионов и флагами их наличия в файле, по REGIONS_IN_ROW регионов
+    //в строке. Строк столько, сколько нужно для наибольшего региона, но не меньше, чем для REGIONS_COUNT
+    public static final int REGIONS_COUNT = 70;
+    public static final int NO_REGION = 0;
+    public static final int REGIONS_IN_ROW = 10;
+    public static final String REGIONS_PAGE_NAME = "м.р, г.о";
 
     public static int getFileRegion(File file, DataFileType dataFileType) {
         int region = 0;
@@ -24,54 +29,72 @@ public class RegionsUtils {
         return region;
     }
 
-    public static List<Integer> getRegions(String serverFileName) {
+    public static RegionSet getRegions(String serverFileName) {
+        //регионы снимка совпадают с листом регионов, если снимок соответствует файлу
+        val snapshot = ServerFileSnapshot.receive(serverFileName);
+        if (snapshot != null) {
+            return snapshot.getRegions();
+        }
         val ftpConnector = new FTPConnector();
         val inputStream = ftpConnector.getInputFileStream(serverFileName);
-        Workbook workbook;
-        try {
-            workbook = WorkbookFactory.create(inputStream);
+        if (inputStream == null) {
+            return null;
+        }
+        //строки с данными не нужны, читается только лист регионов
+        try (val reader = ServerFileReader.open(serverFileName, inputStream)) {
+            reader.probe();
+            return reader.getRegions();
         } catch (Exception e) {
             return null;
         }
-        return readRegionsFromSecondPage(workbook);
     }
 
-    public static List<Integer> readRegionsFromSecondPage(Workbook workbook) {
-        val existedRegions = EMPTY_REGIONS;
-        List<Integer> regions = new ArrayList<>();
+    public static RegionSet readRegionsFromSecondPage(Workbook workbook) {
+        val existedRegions = new RegionSet.Builder();
         val secondPage = workbook.getSheetAt(1);
-        for (int i = 0; i < 14; i++) {
-            Row row = secondPage.getRow(i);
-            if (i % 2 != 0) {
-                for (int j = 0; j < 10; j++) {
-                    Cell cell = row.getCell(j);
-                    if (cell.getBooleanCellValue()) {
-                        existedRegions[(i - 1) * 5 + j] = true;
-                    }
+        for (Row row : secondPage) {
+            for (Cell cell : row) {
+                val region = getRegion(row.getRowNum(), cell.getColumnIndex());
+                if (region != NO_REGION && cell.getCellTypeEnum() == CellType.BOOLEAN && cell.getBooleanCellValue()) {
+                    existedRegions.add(region);
                 }
             }
         }
-        for (int i = 0; i < existedRegions.length - 1; i++) {
-            if (existedRegions[i]) {
-                regions.add(i + 1);
-            }
+        return existedRegions.build();
+    }
+
+    //номер региона по ячейке строки с флагами на листе регионов, для остальных ячеек NO_REGION
+    public static int getRegion(int rowIndex, int columnIndex) {
+        if (rowIndex % 2 == 0 || columnIndex < 0 || columnIndex >= REGIONS_IN_ROW) {
+            return NO_REGION;
         }
-        return regions;
+        return (rowIndex - 1) / 2 * REGIONS_IN_ROW + columnIndex + 1;
+    }
+
+    //номер региона по ячейке строки с номерами на листе регионов
+    public static int getRegionNumber(int rowIndex, int columnIndex) {
+        return rowIndex * REGIONS_IN_ROW / 2 + columnIndex + 1;
+    }
+
+    public static int getRegionsPageRowCount(RegionSet existedRegions) {
+        val regionsCount = Math.max(REGIONS_COUNT, existedRegions.getMaxRegion());
+        return (regionsCount + REGIONS_IN_ROW - 1) / REGIONS_IN_ROW * 2;
     }
 
-    public static void createRegionsPageInServerFile(Workbook workbook, boolean[] existedRegions) {
-        Sheet sheet = workbook.createSheet("м.р, г.о");
-        for (int i = 0; i < 14; i++) {
+    public static void createRegionsPageInServerFile(Workbook workbook, RegionSet existedRegions) {
+        Sheet sheet = workbook.createSheet(REGIONS_PAGE_NAME);
+        val rowsCount = getRegionsPageRowCount(existedRegions);
+        for (int i = 0; i < rowsCount; i++) {
             Row row = sheet.createRow(i);
             if (i % 2 == 0) {
-                for (int j = 0; j < 10; j++) {
+                for (int j = 0; j < REGIONS_IN_ROW; j++) {
                     Cell cell = row.createCell(j);
-                    cell.setCellValue(i * 5 + j + 1);
+                    cell.setCellValue(getRegionNumber(i, j));
                 }
             } else {
-                for (int j = 0; j < 10; j++) {
+                for (int j = 0; j < REGIONS_IN_ROW; j++) {
                     Cell cell = row.createCell(j);
-                    cell.setCellValue(existedRegions[(i - 1) * 5 + j]);
+                    cell.setCellValue(existedRegions.contains(getRegion(i, j)));
                 }
             }
         }
@@ -0,0 +1,20 @@
+package file.handling.util;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+
+public class WorkbookUtils {
+
+    //у книги SXSSF после закрытия удаляются временные файлы со сброшенными строками
+    public static void closeWorkbook(Workbook workbook) throws IOException {
+        try {
+            workbook.close();
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+    }
+}
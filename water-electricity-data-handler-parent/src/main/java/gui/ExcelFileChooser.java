@@ -9,7 +9,7 @@ import java.io.File;
 public class ExcelFileChooser extends JFileChooser {
 
     private static final String XLS_FILE_MASK = ".xls";
-    private static final String XLSX_FILE_MASK = ".xls";
+    private static final String XLSX_FILE_MASK = ".xlsx";
 
     public ExcelFileChooser() {
         FileFilter fileFilterXls = createXlsFileFilter();
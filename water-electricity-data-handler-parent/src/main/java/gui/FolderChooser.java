@@ -0,0 +1,20 @@
+package gui;
+
+import javax.swing.*;
+import java.awt.*;
+
+
+public class FolderChooser extends JFileChooser {
+
+    public FolderChooser() {
+        setFileSelectionMode(DIRECTORIES_ONLY);
+        setAcceptAllFileFilterUsed(false);
+    }
+
+    @Override
+    protected JDialog createDialog(Component parent) throws HeadlessException {
+        JDialog dialog = super.createDialog(parent);
+        dialog.setAlwaysOnTop(true);
+        return dialog;
+    }
+}
@@ -97,7 +97,7 @@ public class DeleteRegionFromServerFileWindowController extends BaseWindowContro
                 val serverFileName = mainWindowController.getSelectedServerFileName();
                 val logger = Logger.getLogger(getClass().toString(), "processRegionsComboBoxClick");
                 logger.log(LogCategory.INFO, "Getting regions from file = '" + serverFileName + "'");
-                loadedRegions = RegionsUtils.getRegions(serverFileName);
+                loadedRegions = RegionsUtils.getRegions(serverFileName).toList();
                 return null;
             }
         };
@@ -5,9 +5,15 @@ import common.DataFileType;
 import common.DataType;
 import common.logger.LogCategory;
 import common.logger.Logger;
+import file.handling.export.ServerFileExporterBuilder;
 import file.handling.handler.FileHandler;
+import file.handling.parser.CellError;
+import file.handling.parser.ElectricityDataParser;
+import file.handling.parser.LocalFileParseResult;
+import file.handling.parser.WaterDataParser;
 import file.handling.util.HandlingType;
 import gui.ExcelFileChooser;
+import gui.FolderChooser;
 import gui.common.GuiConstants;
 import gui.common.WindowsFactory;
 import gui.controller.common.CommonControllerMethods;
@@ -28,7 +34,10 @@ import server.connector.lock.LockFileMonitor;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static common.CommonUtils.isNullOrEmpty;
 
@@ -51,9 +60,19 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
     private static final String FILE_IS_SENDING = "Файл отправляется...";
     private static final String OPEN_FILE_TEXT = "Открыть файл";
     private static final String FILE_WAS_LOADED_TEXT = "Файл загружен";
+    private static final String FILES_WERE_LOADED_TEXT = "Загружено файлов: ";
+    private static final String SELECT_ONE_FILE_FOR_NEW_SERVER_FILE_TEXT =
+            "Для нового серверного файла выберите один файл";
     private static final String WRONG_FILE_FORMAT_OR_NAME_TEXT = "Неверный формат или имя файла";
     private static final String WATER_PATTERN = "[В|в]одоснабжение.+";
     private static final String ELECTRICITY_PATTERN = "[Э|э]лектроснабжение.+";
+    private static final String LOADED_FILE_READING_ERROR_TEXT = "Файл не удалось прочитать";
+    private static final String LOADED_FILE_CELL_ERRORS_TEXT = "Ошибки в ячейках: ";
+    private static final String SELECT_EXPORT_FOLDER_TEXT = "Выбрать папку";
+    private static final String FILE_IS_EXPORTING = "Данные выгружаются...";
+    private static final String SUCCESSFUL_EXPORT_TEXT = "Данные серверного файла выгружены в папку ";
+    private static final String FAILED_EXPORT_TEXT = "Не удалось выгрузить данные серверного файла";
+    private static final int MAX_SHOWN_CELL_ERRORS = 10;
 
     @Getter
     private List<String> serverFileNames;
@@ -74,9 +93,16 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
     @Getter
     private File loadedFile;
 
+    //несколько выбранных файлов добавляются в серверный файл одним пакетом, для одного файла список пуст
+    @Getter
+    private List<File> loadedFiles = Collections.emptyList();
+
     @Getter
     private boolean loadedFileReadyForSend;
 
+    //предварительный разбор загруженного файла, запускается при выборе файла
+    private Task<LocalFileParseResult> loadedFileParseTask;
+
     public MainWindowController() {
         serverFileNames = new ArrayList<>();
         serverFileNames.add(GuiConstants.NEW_SERVER_FILE_GUI_TEXT);
@@ -128,6 +154,40 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
         deleteRegionWindowController.showWindow();
     }
 
+    //данные выбранного серверного файла записываются в CSV файл в выбранной папке, блокировка не нужна
+    public void processExportButtonClick(MouseEvent mouseEvent) {
+        if (CommonUtils.isNullOrEmpty(selectedServerFileName) ||
+                selectedServerFileName.equals(GuiConstants.NEW_SERVER_FILE_GUI_TEXT)) {
+            window.setCurrentTaskInfoText(SELECT_SERVER_FILE_TEXT);
+            return;
+        }
+        val folderChooser = new FolderChooser();
+        if (folderChooser.showDialog(null, SELECT_EXPORT_FOLDER_TEXT) != FolderChooser.APPROVE_OPTION) {
+            return;
+        }
+        val outputFolder = folderChooser.getSelectedFile();
+        val serverFileExporter = new ServerFileExporterBuilder()
+                .setServerFileName(selectedServerFileName)
+                .setOutputFolder(outputFolder)
+                .build(selectedDataType);
+        val exportTask = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                serverFileExporter.export();
+                return null;
+            }
+        };
+        exportTask.setOnSucceeded(event -> showSuccessWindow(SUCCESSFUL_EXPORT_TEXT + outputFolder.getAbsolutePath()));
+        exportTask.setOnFailed(event -> {
+            Logger logger = Logger.getLogger(MainWindowController.class.toString(), "processExportButtonClick");
+            logger.log(LogCategory.ERROR, "Error during exporting server file: " + exportTask.getException());
+            showErrorWindow(FAILED_EXPORT_TEXT);
+        });
+        new Thread(exportTask).start();
+        showLongTaskProcessingInfo(FILE_IS_EXPORTING);
+        disableWindowElements();
+    }
+
     public void processSendFileButtonClick(MouseEvent clickEvent) {
         if (isNullOrEmpty(selectedServerFileName)) {
             window.setCurrentTaskInfoText(SELECT_FILE_FOR_UPLOADING_TEXT);
@@ -137,14 +197,19 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
             window.setCurrentTaskInfoText(SELECT_FILE_FOR_DOWNLOADING_TEXT);
             return;
         }
-        if (!isFileMatchingToData()) {
+        val sentFiles = getSentFiles();
+        if (!sentFiles.stream().allMatch(this::isFileMatchingToData)) {
             window.setCurrentTaskInfoText(SELECTED_FILE_NOT_MATCH_TO_DATA_TYPE_TEXT);
             return;
         }
-        if (!loadedFile.exists()) {
+        if (!sentFiles.stream().allMatch(File::exists)) {
             window.setCurrentTaskInfoText(SELECTED_FILE_NOT_FOUND_TEXT);
             return;
         }
+        if (isSelectedFileNameIsNewFile() && !loadedFiles.isEmpty()) {
+            window.setCurrentTaskInfoText(SELECT_ONE_FILE_FOR_NEW_SERVER_FILE_TEXT);
+            return;
+        }
         if (isSelectedFileNameIsNewFile()) {
             val newServerFileNameInputWindowController = WindowsFactory
                     .createWindow(NewServerFileNameInputWindow.class, NewServerFileNameInputWindowController.class);
@@ -153,24 +218,32 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
             return;
         }
 
-        val sendFileTask = new Task<Void>() {
+        val parseTask = loadedFileParseTask;
+        val files = loadedFiles;
+        val sendFileTask = new Task<Boolean>() {
             @Override
-            public Void call() {
+            public Boolean call() {
                 Logger logger =
                         Logger.getLogger(MainWindowController.class.toString(), "processSendFileButtonClick");
+                //файл с ошибками не отправляется, серверный файл не блокируется
+                if (!waitForLoadedFileParsing(parseTask)) {
+                    return false;
+                }
                 try {
                     val fileHandler = FileHandler.builder()
                             .dataFileType(dataFileType)
                             .dataType(selectedDataType)
                             .localFile(loadedFile)
+                            .localFiles(files.isEmpty() ? null : files)
                             .serverFileName(selectedServerFileName)
                             .build();
-                    fileHandler.processFileHandling(HandlingType.MODIFY);
+                    fileHandler.processFileHandling(
+                            files.isEmpty() ? HandlingType.MODIFY : HandlingType.MODIFY_WITH_LOCAL_FILES);
                 } catch (Exception e) {
                     logger.log(LogCategory.ERROR, "Ошибка обработки файлов: " + e);
                     LockFileMonitor.getLockMonitor().forceDeleteLocks();
                 }
-                return null;
+                return true;
             }
 
             @Override
@@ -181,6 +254,9 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
         sendFileTask.setOnSucceeded(event -> {
             enableWindowElements();
             hideLongTaskProcessingInfo();
+            if (!sendFileTask.getValue()) {
+                window.setCurrentTaskInfoText(getParseErrorText(parseTask));
+            }
         });
         new Thread(sendFileTask).start();
         showLongTaskProcessingInfo(FILE_IS_SENDING);
@@ -189,20 +265,30 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
 
     public void processLoadButtonClick(MouseEvent mouseEvent) {
         val excelFileChooser = new ExcelFileChooser();
+        excelFileChooser.setMultiSelectionEnabled(true);
         int result = excelFileChooser.showDialog(null, OPEN_FILE_TEXT);
         if (result == ExcelFileChooser.APPROVE_OPTION) {
 
-            loadedFile = excelFileChooser.getSelectedFile();
+            val selectedFiles = excelFileChooser.getSelectedFiles();
+            if (selectedFiles.length > 1) {
+                loadFiles(Arrays.asList(selectedFiles));
+                return;
+            }
+            loadedFiles = Collections.emptyList();
+            loadedFile = selectedFiles.length == 1 ? selectedFiles[0] : excelFileChooser.getSelectedFile();
             val loadedFilePath = loadedFile.getAbsolutePath();
             val loadedFileName = loadedFile.getName();
 
             if (clientFileWasLoadedCorrectly(loadedFilePath, loadedFileName)) {
+                dataFileType = DataFileType.fromFileName(loadedFileName);
                 window.setLoadFileInfoText(FILE_WAS_LOADED_TEXT);
                 window.setCurrentTaskInfoText("");
                 loadedFileReadyForSend = true;
+                startLoadedFileParsing(loadedFileName);
             } else {
                 window.setLoadFileInfoText(WRONG_FILE_FORMAT_OR_NAME_TEXT);
                 loadedFileReadyForSend = false;
+                loadedFileParseTask = null;
             }
 
         }
@@ -227,6 +313,7 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
     public void disableWindowElements() {
         window.getSendFileButton().setDisable(true);
         window.getDeleteRegionButton().setDisable(true);
+        window.getExportButton().setDisable(true);
         window.getLeftBlock().getElectricityRadioButton().setDisable(true);
         window.getLeftBlock().getWaterRadioButton().setDisable(true);
         window.getLeftBlock().getLoadFileWidget().getLoadFileButton().setDisable(true);
@@ -242,6 +329,7 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
         if (!CommonUtils.isNullOrEmpty(selectedServerFileName) &&
                 !selectedServerFileName.equals(GuiConstants.NEW_SERVER_FILE_GUI_TEXT)) {
             window.getDeleteRegionButton().setDisable(false);
+            window.getExportButton().setDisable(false);
         }
     }
 
@@ -273,9 +361,13 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
     }
 
     void onNewServerFileNameInputted() {
-        val task = new Task<Void>() {
+        val parseTask = loadedFileParseTask;
+        val task = new Task<Boolean>() {
             @Override
-            public Void call() {
+            public Boolean call() {
+                if (!waitForLoadedFileParsing(parseTask)) {
+                    return false;
+                }
                 val fileHandler = FileHandler.builder()
                         .serverFileName(selectedServerFileName)
                         .localFile(loadedFile)
@@ -283,11 +375,15 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
                         .dataFileType(dataFileType)
                         .build();
                 fileHandler.processFileHandling(HandlingType.CREATE);
-                return null;
+                return true;
             }
         };
         task.setOnSucceeded(event -> {
             enableWindowElements();
+            if (!task.getValue()) {
+                hideLongTaskProcessingInfo();
+                window.setCurrentTaskInfoText(getParseErrorText(parseTask));
+            }
         });
         new Thread(task).start();
         showLongTaskProcessingInfo(FILE_IS_SENDING);
@@ -323,8 +419,84 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
         }
     }
 
-    private boolean isFileMatchingToData() {
-        String loadedFileName = loadedFile.getName();
+    //файлы пакета разбираются при отправке: ошибки всех файлов пакета сообщаются после разбора
+    private void loadFiles(List<File> files) {
+        for (File file : files) {
+            if (!clientFileWasLoadedCorrectly(file.getAbsolutePath(), file.getName())) {
+                window.setLoadFileInfoText(WRONG_FILE_FORMAT_OR_NAME_TEXT);
+                loadedFileReadyForSend = false;
+                loadedFileParseTask = null;
+                return;
+            }
+        }
+        loadedFiles = files;
+        loadedFile = files.get(0);
+        dataFileType = DataFileType.fromFileName(loadedFile.getName());
+        window.setLoadFileInfoText(FILES_WERE_LOADED_TEXT + files.size());
+        window.setCurrentTaskInfoText("");
+        loadedFileReadyForSend = true;
+        loadedFileParseTask = null;
+    }
+
+    //файл разбирается в фоне, пока пользователь выбирает серверный файл. Результат сохраняется
+    //в кэше разобранных файлов, и при отправке файл повторно не читается
+    private void startLoadedFileParsing(String loadedFileName) {
+        val file = loadedFile;
+        val fileType = dataFileType;
+        val fileDataType = loadedFileName.matches(WATER_PATTERN) ? DataType.WATER : DataType.ELECTRICITY;
+        val parseTask = new Task<LocalFileParseResult>() {
+            @Override
+            protected LocalFileParseResult call() {
+                val parser = fileDataType == DataType.WATER ? new WaterDataParser() : new ElectricityDataParser();
+                //проверяются все ячейки, чтобы показать все ошибки файла сразу
+                parser.setCollectingCellErrors(true);
+                return parser.parseClientLocalFile(file, fileType);
+            }
+        };
+        parseTask.setOnSucceeded(event -> {
+            if (parseTask == loadedFileParseTask && !parseTask.getValue().isParsedSuccessfully()) {
+                window.setLoadFileInfoText(getParseErrorText(parseTask));
+            }
+        });
+        loadedFileParseTask = parseTask;
+        val parseThread = new Thread(parseTask);
+        parseThread.setDaemon(true);
+        parseThread.start();
+    }
+
+    //если предварительный разбор не удался по другой причине, файл разбирается заново при обработке
+    private boolean waitForLoadedFileParsing(Task<LocalFileParseResult> parseTask) {
+        val logger = Logger.getLogger(MainWindowController.class.toString(), "waitForLoadedFileParsing");
+        try {
+            return parseTask == null || parseTask.get().isParsedSuccessfully();
+        } catch (Exception e) {
+            logger.log(LogCategory.ERROR, "Error during waiting for file parsing: " + e);
+            return true;
+        }
+    }
+
+    private String getParseErrorText(Task<LocalFileParseResult> parseTask) {
+        val cellErrors = parseTask.getValue().getCellErrors();
+        if (cellErrors == null || cellErrors.isEmpty()) {
+            return LOADED_FILE_READING_ERROR_TEXT;
+        }
+        val shownCellCodes = cellErrors.stream()
+                .limit(MAX_SHOWN_CELL_ERRORS)
+                .map(CellError::getCellCode)
+                .collect(Collectors.joining(", "));
+        if (cellErrors.size() > MAX_SHOWN_CELL_ERRORS) {
+            return LOADED_FILE_CELL_ERRORS_TEXT + shownCellCodes + " и ещё " +
+                    (cellErrors.size() - MAX_SHOWN_CELL_ERRORS);
+        }
+        return LOADED_FILE_CELL_ERRORS_TEXT + shownCellCodes;
+    }
+
+    private List<File> getSentFiles() {
+        return loadedFiles.isEmpty() ? Collections.singletonList(loadedFile) : loadedFiles;
+    }
+
+    private boolean isFileMatchingToData(File file) {
+        String loadedFileName = file.getName();
         switch (selectedDataType) {
             case WATER:
                 return loadedFileName.matches(WATER_XLS_FILE_PATTERN) ||
@@ -342,7 +514,7 @@ public class MainWindowController extends BaseWindowController<MainWindow> {
 
     private boolean clientFileWasLoadedCorrectly(String loadedFilePath, String loadedFileName) {
         return ((loadedFilePath.matches(".+\\" + DataFileType.XLS.getFileType())) ||
-                (loadedFilePath.matches(".+\\" + DataFileType.XLS.getFileType()))) &&
+                (loadedFilePath.matches(".+\\" + DataFileType.XSLX.getFileType()))) &&
                 ((loadedFileName.matches(WATER_PATTERN)) || (loadedFileName.matches(ELECTRICITY_PATTERN)));
     }
 }
@@ -1,5 +1,6 @@
 package gui.controller;
 
+import common.DataFileType;
 import gui.window.NewServerFileNameInputWindow;
 import javafx.scene.input.MouseEvent;
 import lombok.Setter;
@@ -28,7 +29,9 @@ public class NewServerFileNameInputWindowController extends BaseWindowController
         } else if (inputtedFileName.matches(SERVER_FILE_NAME_PATTERN)) {
             window.setErrorText(WRONG_FILE_NAME);
         } else {
-            mainWindowController.setSelectedServerFileName(inputtedFileName + ".xls");
+            //формат серверного файла определяется по расширению его имени
+            val serverFileType = window.getXlsxFormatCheckBox().isSelected() ? DataFileType.XSLX : DataFileType.XLS;
+            mainWindowController.setSelectedServerFileName(inputtedFileName + serverFileType.getFileType());
             val stage = window.getStage();
             stage.close();
             mainWindowController.onNewServerFileNameInputted();
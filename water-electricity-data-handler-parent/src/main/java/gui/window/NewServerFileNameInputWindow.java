@@ -5,6 +5,7 @@ import gui.common.GuiCommonLib;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
@@ -24,6 +25,9 @@ public class NewServerFileNameInputWindow extends BaseWindow<NewServerFileNameIn
     @Getter
     private Label errorTextLabel;
 
+    @Getter
+    private CheckBox xlsxFormatCheckBox;
+
     @Getter
     private Stage stage;
 
@@ -35,6 +39,7 @@ public class NewServerFileNameInputWindow extends BaseWindow<NewServerFileNameIn
     private static final String INPUT_TEXT_FIELD_PROMPT_TEXT = "Введите название файла без расширения";
     private static final String STAGE_TITLE = "Создание нового файла";
     private static final String CREATE_BUTTON_TEXT = "Создать";
+    private static final String XLSX_FORMAT_CHECK_BOX_TEXT = "Формат .xlsx (более 65536 строк)";
 
     private VBox rootBox;
     private VBox mainBox;
@@ -74,6 +79,7 @@ public class NewServerFileNameInputWindow extends BaseWindow<NewServerFileNameIn
 
         createFileNameInputTextField();
         createErrorTextLabel();
+        createXlsxFormatCheckBox();
         createCreateButton();
         val createCreateButtonBox = wrapNodeToCenteredHBox(createButton);
 
@@ -86,6 +92,7 @@ public class NewServerFileNameInputWindow extends BaseWindow<NewServerFileNameIn
         mainBox.getChildren().addAll(new Label("\n\n\n"),
                 inputFileNameLabelBox,
                 fileNameInputTextField,
+                wrapNodeToCenteredHBox(xlsxFormatCheckBox),
                 errorTextLabel,
                 createCreateButtonBox);
         mainBox.setAlignment(Pos.CENTER);
@@ -105,6 +112,11 @@ public class NewServerFileNameInputWindow extends BaseWindow<NewServerFileNameIn
         fileNameInputTextField.setMaxWidth(250);
     }
 
+    private void createXlsxFormatCheckBox() {
+        xlsxFormatCheckBox = new CheckBox(XLSX_FORMAT_CHECK_BOX_TEXT);
+        xlsxFormatCheckBox.setSelected(false);
+    }
+
     private void createRootBox() {
         rootBox = new VBox();
         rootBox.layout();
@@ -31,6 +31,9 @@ public class MainWindow extends BaseWindow<MainWindowController> {
     @Getter
     private Button deleteRegionButton;
 
+    @Getter
+    private Button exportButton;
+
     @Getter
     private Button exitButton;
 
@@ -45,6 +48,7 @@ public class MainWindow extends BaseWindow<MainWindowController> {
 
     private static final String SEND_FILE_BUTTON_TEXT = "Отправить";
     private static final String DELETE_REGION_BUTTON_TEXT = "Удалить регион из файла";
+    private static final String EXPORT_BUTTON_TEXT = "Выгрузить в CSV";
     private static final String EXIT_BUTTON_TEXT = "Выход";
 
     private HBox mainBox;
@@ -110,6 +114,7 @@ public class MainWindow extends BaseWindow<MainWindowController> {
         sendFileButton.setOnMouseClicked(controller::processSendFileButtonClick);
         exitButton.setOnMouseClicked(controller::processExitButtonClick);
         deleteRegionButton.setOnMouseClicked(controller::processDeleteRegionButtonClick);
+        exportButton.setOnMouseClicked(controller::processExportButtonClick);
         leftBlock.getLoadFileWidget().getLoadFileButton().setOnMouseClicked(controller::processLoadButtonClick);
         getElectricityRadioButton().setOnMouseClicked(controller::processElectricityRadioButtonClick);
         getWaterRadioButton().setOnMouseClicked(controller::processWaterRadioButtonClick);
@@ -148,6 +153,7 @@ public class MainWindow extends BaseWindow<MainWindowController> {
         createSendFileButton();
         createExitButton();
         createDeleteRegionButton();
+        createExportButton();
     }
 
     private void createLongTaskInfoTextLabel() {
@@ -164,10 +170,11 @@ public class MainWindow extends BaseWindow<MainWindowController> {
         exitButtonBox = wrapNodeToCenteredHBox(exitButton);
         val sendFileButtonBox = wrapNodeToCenteredHBox(sendFileButton);
         val deleteRegionButtonBox = wrapNodeToCenteredHBox(deleteRegionButton);
+        val exportButtonBox = wrapNodeToCenteredHBox(exportButton);
         currentTaskInfoTextBox = wrapNodeToCenteredVBox(currentTaskInfoTextLabel);
 
         sendFileAndDeleteRegionButtonsBox = new HBox();
-        sendFileAndDeleteRegionButtonsBox.getChildren().addAll(sendFileButtonBox, deleteRegionButtonBox);
+        sendFileAndDeleteRegionButtonsBox.getChildren().addAll(sendFileButtonBox, deleteRegionButtonBox, exportButtonBox);
         sendFileAndDeleteRegionButtonsBox.setAlignment(Pos.CENTER);
         sendFileAndDeleteRegionButtonsBox.setSpacing(50);
     }
@@ -191,6 +198,11 @@ public class MainWindow extends BaseWindow<MainWindowController> {
         deleteRegionButton.setDisable(true);
     }
 
+    private void createExportButton() {
+        exportButton = new Button(EXPORT_BUTTON_TEXT);
+        exportButton.setDisable(true);
+    }
+
     private void createSendFileButton() {
         sendFileButton = new Button(SEND_FILE_BUTTON_TEXT);
     }
@@ -6,15 +6,22 @@ import common.config.ConfigProperties;
 import common.config.ConfigPropertiesSections;
 import common.logger.LogCategory;
 import common.logger.Logger;
+import common.logger.event.EventLog;
+import common.logger.event.LogEvent;
 import lombok.Getter;
 import lombok.val;
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPReply;
+import org.apache.commons.net.io.Util;
 
 import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -28,6 +35,10 @@ public class FTPConnector {
     private final static String UTF_8 = "UTF-8";
     private final static String LOCK_FILE_TYPE = ".lockObject";
     private final static String ID_FLE_TYPE = ".txt";
+    private final static String SNAPSHOT_FILE_TYPE = ".bin";
+    private final static int DATA_BUFFER_SIZE = 64 * 1024;
+    //команда RFC 3659, в FTPCmd этой версии commons-net её нет
+    private final static String SIZE_COMMAND = "SIZE";
 
     @Getter
     private FTPErrorCode ftpErrorCode;
@@ -48,7 +59,8 @@ public class FTPConnector {
         }
         serverFileNames.stream()
                 .filter(serverFileName ->
-                        !serverFileName.contains(LOCK_FILE_TYPE) && !serverFileName.contains(ID_FLE_TYPE))
+                        !serverFileName.contains(LOCK_FILE_TYPE) && !serverFileName.contains(ID_FLE_TYPE)
+                                && !serverFileName.endsWith(SNAPSHOT_FILE_TYPE))
                 .forEach(serverFileName -> {
                     filteredServerFileNames.add(serverFileName);
                     logger.log(LogCategory.INFO, "Server file name = '" + serverFileName + "'");
@@ -58,7 +70,8 @@ public class FTPConnector {
 
     public InputStream getInputFileStream(String serverFileName) {
         val logger = Logger.getLogger(getClass().getName(), "getInputFileStream");
-        logger.log(LogCategory.DEBUG, "Getting stream of server file '" + serverFileName + "'");
+        logger.log(LogCategory.DEBUG, () -> "Getting stream of server file '" + serverFileName + "'");
+        val startTime = System.nanoTime();
         if (!tryToConnect()) {
             return null;
         }
@@ -73,14 +86,20 @@ public class FTPConnector {
                 ftpErrorCode = FTPErrorCode.FILE_NOT_FOUND;
                 logger.log(LogCategory.ERROR,
                         "Unsuccessful retrieving. File = '" + serverFileName + "' wasn't retrieved from server");
+                EventLog.getEventLog().record(LogEvent.FTP_FILE_RETRIEVE_FAILED, serverFileName,
+                        System.nanoTime() - startTime);
             } else {
                 logger.log(LogCategory.INFO,
                         "Successful retrieving. File = '" + serverFileName + "' was retrieved from server");
+                EventLog.getEventLog().record(LogEvent.FTP_FILE_RETRIEVED, serverFileName,
+                        System.nanoTime() - startTime, outputStream.size());
                 inputStream = new ByteArrayInputStream(outputStream.toByteArray());
                 outputStream.close();
                 }
         } catch (Exception e) {
             ftpErrorCode = FTPErrorCode.FILE_RETRIEVE_ERROR;
+            EventLog.getEventLog().record(LogEvent.FTP_FILE_RETRIEVE_FAILED, serverFileName,
+                    System.nanoTime() - startTime);
             logger.log(LogCategory.ERROR, "Error during getting stream of server file '" + serverFileName + "': " + e);
         } finally {
             disconnect();
@@ -89,8 +108,18 @@ public class FTPConnector {
     }
 
     public boolean sendFile(InputStream localFileStream, String serverFileName) {
+        return sendFile(serverFileName, outputStream -> {
+            try (InputStream inputStream = localFileStream) {
+                Util.copyStream(inputStream, outputStream);
+            }
+        });
+    }
+
+    //данные записываются сразу в соединение передачи данных, без промежуточной копии в памяти
+    public boolean sendFile(String serverFileName, FileDataWriter fileDataWriter) {
         val logger = Logger.getLogger(getClass().getName(), "sendFile");
-        logger.log(LogCategory.DEBUG, "Sending file '" + serverFileName + "' to server");
+        logger.log(LogCategory.DEBUG, () -> "Sending file '" + serverFileName + "' to server");
+        val startTime = System.nanoTime();
         if (!tryToConnect()) {
             return false;
         }
@@ -100,20 +129,35 @@ public class FTPConnector {
         }
         val serverFilePath = formatServerFilePath(serverFileName);
         boolean fileStoredSuccessfully = false;
+        CountingOutputStream outputStream = null;
         try {
-            fileStoredSuccessfully = ftpClient.storeFile(serverFilePath, localFileStream);
-            localFileStream.close();
+            val dataStream = ftpClient.storeFileStream(serverFilePath);
+            if (dataStream != null) {
+                outputStream = new CountingOutputStream(new BufferedOutputStream(dataStream, DATA_BUFFER_SIZE));
+                try {
+                    fileDataWriter.write(outputStream);
+                } finally {
+                    outputStream.close();
+                }
+                fileStoredSuccessfully = ftpClient.completePendingCommand();
+            }
             if (!fileStoredSuccessfully) {
                 ftpErrorCode = FTPErrorCode.FILE_ALREADY_EXIST;
                 logger.log(LogCategory.ERROR,
                         "Unsuccessful sending. File = '" + serverFileName + "' wasn't loaded to the server");
+                EventLog.getEventLog().record(LogEvent.FTP_FILE_SEND_FAILED, serverFileName,
+                        System.nanoTime() - startTime, getByteCount(outputStream));
             } else {
                 logger.log(LogCategory.INFO,
                         "Successful sending. File = '" + serverFileName + "' was loaded to the server");
+                EventLog.getEventLog().record(LogEvent.FTP_FILE_SENT, serverFileName,
+                        System.nanoTime() - startTime, getByteCount(outputStream));
             }
         } catch (Exception e) {
             fileStoredSuccessfully = false;
             ftpErrorCode = FTPErrorCode.FILE_SENDING_ERROR;
+            EventLog.getEventLog().record(LogEvent.FTP_FILE_SEND_FAILED, serverFileName,
+                    System.nanoTime() - startTime, getByteCount(outputStream));
             logger.log(LogCategory.ERROR, "Error during sending file '" + serverFileName + "' to server: " + e);
         } finally {
             disconnect();
@@ -121,7 +165,39 @@ public class FTPConnector {
         return fileStoredSuccessfully;
     }
 
+    //версия файла на сервере: время изменения (MDTM) и размер (SIZE). Если сервер не сообщает
+    //их или файла нет, возвращается null
+    public String getFileVersion(String serverFileName) {
+        val logger = Logger.getLogger(getClass().getName(), "getFileVersion");
+        if (!tryToConnect()) {
+            return null;
+        }
+        if (!tryToLogIn()) {
+            return null;
+        }
+        val serverFilePath = formatServerFilePath(serverFileName);
+        String fileVersion = null;
+        try {
+            val modificationTime = ftpClient.getModificationTime(serverFilePath);
+            if (modificationTime != null
+                    && FTPReply.isPositiveCompletion(ftpClient.sendCommand(SIZE_COMMAND, serverFilePath))) {
+                val size = ftpClient.getReplyString().substring(4).trim();
+                fileVersion = modificationTime.trim() + " " + size;
+            } else {
+                ftpErrorCode = FTPErrorCode.FILE_NOT_FOUND;
+                logger.log(LogCategory.INFO, "Version of file '" + serverFileName + "' wasn't received");
+            }
+        } catch (Exception e) {
+            ftpErrorCode = FTPErrorCode.FILE_VERSION_GETTING_ERROR;
+            logger.log(LogCategory.ERROR, "Error during getting version of file '" + serverFileName + "': " + e);
+        } finally {
+            disconnect();
+        }
+        return fileVersion;
+    }
+
     public boolean deleteFile(String serverFileName) {
+        val startTime = System.nanoTime();
         if (tryToConnect()) {
             return false;
         }
@@ -137,15 +213,21 @@ public class FTPConnector {
                 ftpErrorCode = FTPErrorCode.FILE_NOT_FOUND;
                 logger.log(LogCategory.ERROR,
                         "Unsuccessful deleting. File = '" + serverFileName + "' wasn't found on the server");
+                EventLog.getEventLog().record(LogEvent.FTP_FILE_DELETE_FAILED, serverFileName,
+                        System.nanoTime() - startTime);
             } else {
                 logger.log(LogCategory.INFO,
                         "Successful deleting. File = '" + serverFileName + "' was deleted from the server");
+                EventLog.getEventLog().record(LogEvent.FTP_FILE_DELETED, serverFileName,
+                        System.nanoTime() - startTime);
                 if (serverFilePath.contains(LOCK_FILE_TYPE)) {
                     TemporaryDeleteOnExitFiles.removeFile(serverFilePath);
                 }
             }
         } catch (Exception e) {
             ftpErrorCode = FTPErrorCode.FILE_DELETING_ERROR;
+            EventLog.getEventLog().record(LogEvent.FTP_FILE_DELETE_FAILED, serverFileName,
+                    System.nanoTime() - startTime);
             logger.log(LogCategory.ERROR, "Error during deleting file + '" + serverFileName + "' from server: " + e);
         } finally {
             disconnect();
@@ -155,6 +237,7 @@ public class FTPConnector {
 
     public List<String> getFilesNames() {
         List<String> filesNames = new ArrayList<>();
+        val startTime = System.nanoTime();
         if (!tryToConnect()) {
             return null;
         }
@@ -169,6 +252,8 @@ public class FTPConnector {
             if (files.length > 0) {
                 Arrays.stream(files).forEach(file -> filesNames.add(file.getName()));
             }
+            EventLog.getEventLog().record(LogEvent.FTP_FILE_NAMES_RECEIVED, serverFolder,
+                    System.nanoTime() - startTime);
         } catch (Exception e) {
             ftpErrorCode = FTPErrorCode.FILE_NAMES_GETTING_ERROR;
             logger.log(LogCategory.ERROR, "Error during getting server files: " + e);
@@ -194,11 +279,13 @@ public class FTPConnector {
                 return true;
             } else {
                 logger.log(LogCategory.ERROR, "Connection failed");
+                EventLog.getEventLog().record(LogEvent.FTP_CONNECTION_FAILED, null);
                 ftpErrorCode = FTPErrorCode.CONNECTION_FAILED;
                 return false;
             }
         } catch (Exception e) {
             logger.log(LogCategory.ERROR, "Error. Connection failed: " + e);
+            EventLog.getEventLog().record(LogEvent.FTP_CONNECTION_FAILED, null);
             ftpErrorCode = FTPErrorCode.CONNECTION_FAILED;
             return false;
         }
@@ -247,4 +334,34 @@ public class FTPConnector {
         val serverFolder = config.getPropertyValue(CONFIG_FOLDER_PROPERTY_KEY);
         return serverFolder + "/" + serverFileName;
     }
+
+    private static long getByteCount(CountingOutputStream outputStream) {
+        return outputStream == null ? 0 : outputStream.byteCount;
+    }
+
+    //запись содержимого файла в поток передачи данных на сервер
+    public interface FileDataWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    //число байт, записанных в поток передачи данных
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long byteCount;
+
+        CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            byteCount++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            byteCount += len;
+        }
+    }
 }
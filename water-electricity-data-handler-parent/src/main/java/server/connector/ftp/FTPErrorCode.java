@@ -9,5 +9,6 @@ public enum FTPErrorCode {
     FILE_SENDING_ERROR,
     FILE_DELETING_ERROR,
     DISCONNECTION_FAILED,
-    FILE_NAMES_GETTING_ERROR
+    FILE_NAMES_GETTING_ERROR,
+    FILE_VERSION_GETTING_ERROR
 }
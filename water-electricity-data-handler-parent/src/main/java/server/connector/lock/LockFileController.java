@@ -3,6 +3,8 @@ package server.connector.lock;
 import common.TemporaryDeleteOnExitFiles;
 import common.logger.LogCategory;
 import common.logger.Logger;
+import common.logger.event.EventLog;
+import common.logger.event.LogEvent;
 import lombok.val;
 import server.connector.ftp.FTPConnector;
 
@@ -39,16 +41,25 @@ public class LockFileController {
     public void lockFile(LockFile lockFile) {
         val logger = Logger.getLogger(getClass().toString(), "lockFile");
         val lockFileName = lockFile.getLockFileName();
+        val startTime = System.nanoTime();
         try {
             val outputStream = new ByteArrayOutputStream();
             outputStream.write(1);
             val inputStream = new ByteArrayInputStream(outputStream.toByteArray());
             outputStream.close();
-            ftpConnector.sendFile(inputStream, lockFileName);
+            //файл блокировки, не дошедший до сервера, не считается созданным
+            if (!ftpConnector.sendFile(inputStream, lockFileName)) {
+                logger.log(LogCategory.ERROR, "Lock file '" + lockFileName + "' wasn't sent to the server");
+                EventLog.getEventLog().record(LogEvent.LOCK_CREATE_FAILED, lockFileName,
+                        System.nanoTime() - startTime);
+                return;
+            }
             TemporaryDeleteOnExitFiles.addFile(lockFileName);
             logger.log(LogCategory.INFO, "Locked file = '" + lockFile + "'");
+            EventLog.getEventLog().record(LogEvent.LOCK_CREATED, lockFileName, System.nanoTime() - startTime);
         } catch (Exception e) {
             logger.log(LogCategory.ERROR, "Error during locking file: " + e);
+            EventLog.getEventLog().record(LogEvent.LOCK_CREATE_FAILED, lockFileName, System.nanoTime() - startTime);
         }
     }
 
@@ -60,13 +71,16 @@ public class LockFileController {
             lockFile(lock);
             val logger = Logger.getLogger(getClass().toString(), "updateLock");
             logger.log(LogCategory.INFO, "Updated lock file '" + lock + "'");
+            EventLog.getEventLog().record(LogEvent.LOCK_UPDATED, lock.getLockFileName());
             return updateLock(lock);
         }
         return false;
     }
 
     public void deleteLock(LockFile lock) {
+        val startTime = System.nanoTime();
         ftpConnector.deleteFile(lock.getLockFileName());
+        EventLog.getEventLog().record(LogEvent.LOCK_DELETED, lock.getLockFileName(), System.nanoTime() - startTime);
     }
 
 
@@ -0,0 +1,295 @@
+package file.handling.handler.server.file.builder;
+
+import common.DataFileType;
+import common.DataType;
+import file.handling.model.ElectricityDataModel;
+import file.handling.model.ElectricityDataset;
+import file.handling.model.WaterDataModel;
+import file.handling.model.WaterDataset;
+import file.handling.util.DataGroupsGetter;
+import file.handling.util.RegionSet;
+import file.handling.util.RegionsUtils;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+//файлы .xls, записанные XlsServerFileWriter, открываются книгой HSSF и сравниваются с данными
+//и с тем же файлом в формате .xlsx, который строится через POI
+public class XlsServerFileWriterTest {
+    //запись SST больше этого размера продолжается записями CONTINUE
+    private static final int MAX_RECORD_DATA_SIZE = 8224;
+    private static final int FIRST_DATA_ROW = 5;
+    private static final int WATER_COLUMN_COUNT = 11;
+    private static final int ELECTRICITY_COLUMN_COUNT = 13;
+    private static final int ROW_COUNT = 3000;
+    private static final String PERIOD = "Отопительный период 2016";
+    private static final String FIRST_DATE = "Январь 2016";
+    private static final String SECOND_DATE = "Февраль 2016";
+
+    @Test
+    public void waterFileSurvivesHssfRoundTrip() throws IOException {
+        WaterDataset data = createWaterDataset();
+        try (Workbook xlsWorkbook = openXls(new WaterServerFileBuilder(data, PERIOD, DataFileType.XLS).build());
+             Workbook xlsxWorkbook = openXlsx(new WaterServerFileBuilder(data, PERIOD, DataFileType.XSLX).build())) {
+            Sheet sheet = xlsWorkbook.getSheetAt(0);
+            assertEquals("Водоснабжение", sheet.getSheetName());
+            assertTrue(getHeadline(sheet).startsWith("ДАННЫЕ ДЛЯ ОПРЕДЕЛЕНИЯ И УСТАНОВЛЕНИЯ НОРМАТИВОВ"));
+            assertEquals(PERIOD, sheet.getRow(2).getCell(8).getStringCellValue());
+            assertEquals(getHeadline(xlsxWorkbook.getSheetAt(0)), getHeadline(sheet));
+
+            List<String> expectedAddresses =
+                    getAddressesOrderedByGroup(data.getSize(), data::getGroup, data::getAddress);
+            assertDataSheet(sheet, DataType.WATER, WATER_COLUMN_COUNT, new int[]{1, 2, 5}, expectedAddresses);
+            assertSameMergedRegions(xlsxWorkbook.getSheetAt(0), sheet);
+            assertSameCells(xlsxWorkbook.getSheetAt(0), sheet);
+            assertRegionsSheet(xlsWorkbook, RegionSet.of(7, 12, 75));
+            assertSameCells(xlsxWorkbook.getSheetAt(1), xlsWorkbook.getSheetAt(1));
+        }
+    }
+
+    @Test
+    public void electricityFileSurvivesHssfRoundTrip() throws IOException {
+        ElectricityDataset data = createElectricityDataset();
+        try (Workbook xlsWorkbook = openXls(
+                new ElectricityServerFileBuilder(data, FIRST_DATE, SECOND_DATE, DataFileType.XLS).build());
+             Workbook xlsxWorkbook = openXlsx(
+                     new ElectricityServerFileBuilder(data, FIRST_DATE, SECOND_DATE, DataFileType.XSLX).build())) {
+            Sheet sheet = xlsWorkbook.getSheetAt(0);
+            assertEquals("Электроэнергия", sheet.getSheetName());
+            assertNotNull(getHeadline(sheet));
+            assertEquals(getHeadline(xlsxWorkbook.getSheetAt(0)), getHeadline(sheet));
+
+            List<String> expectedAddresses =
+                    getAddressesOrderedByGroup(data.getSize(), data::getGroup, data::getAddress);
+            assertDataSheet(sheet, DataType.ELECTRICITY, ELECTRICITY_COLUMN_COUNT, new int[]{1, 4, 9},
+                    expectedAddresses);
+            assertSameMergedRegions(xlsxWorkbook.getSheetAt(0), sheet);
+            assertSameCells(xlsxWorkbook.getSheetAt(0), sheet);
+            assertRegionsSheet(xlsWorkbook, RegionSet.of(3, 12));
+            assertSameCells(xlsxWorkbook.getSheetAt(1), xlsWorkbook.getSheetAt(1));
+        }
+    }
+
+    @Test
+    public void longStringsSurviveContinueRecords() throws IOException {
+        //кириллица записывается двумя байтами на символ, латиница - одним
+        String cyrillicAddress = repeat("ул. Длинная, дом ", 5000 / 17 + 1);
+        String latinAddress = repeat("Long street, house ", 9000 / 19 + 1);
+        assertTrue(cyrillicAddress.getBytes(StandardCharsets.UTF_16LE).length > MAX_RECORD_DATA_SIZE);
+        assertTrue(latinAddress.getBytes(StandardCharsets.ISO_8859_1).length > MAX_RECORD_DATA_SIZE);
+
+        WaterDataset data = new WaterDataset();
+        data.add(createWaterModel(1, "ул. Короткая, 1", 7));
+        data.add(createWaterModel(1, cyrillicAddress, 7));
+        data.add(createWaterModel(2, latinAddress, 7));
+        data.add(createWaterModel(2, "ул. Короткая, 2", 7));
+        try (Workbook workbook = openXls(new WaterServerFileBuilder(data, PERIOD, DataFileType.XLS).build())) {
+            List<String> addresses = getDataAddresses(workbook.getSheetAt(0));
+            assertEquals(Arrays.asList("ул. Короткая, 1", cyrillicAddress, latinAddress, "ул. Короткая, 2"),
+                    addresses);
+        }
+    }
+
+    private static WaterDataset createWaterDataset() {
+        WaterDataset data = new WaterDataset();
+        int[] groups = {2, 1, 5, 1, 2};
+        int[] regions = {7, 12, 75};
+        for (int i = 0; i < ROW_COUNT; i++) {
+            WaterDataModel model = createWaterModel(groups[i % groups.length], "ул. Ленина, д. " + i,
+                    regions[i % regions.length]);
+            model.setPeople(i);
+            model.setExpenseHouseCold(i * 1.25);
+            model.setExpenseHouseHot(-i / 8.0);
+            data.add(model);
+        }
+        return data;
+    }
+
+    private static WaterDataModel createWaterModel(int group, String address, int region) {
+        WaterDataModel model = new WaterDataModel();
+        model.setGroup(group);
+        model.setAddress(address);
+        model.setRegion(region);
+        model.setBiggestFloor(9);
+        model.setSmallestFloor(5);
+        model.setJoint(1234.56);
+        model.setHasColdWaterAccountingDevice("да");
+        model.setHasHotWaterAccountingDevice("нет");
+        return model;
+    }
+
+    private static ElectricityDataset createElectricityDataset() {
+        ElectricityDataset data = new ElectricityDataset();
+        int[] groups = {9, 4, 1, 4};
+        int[] regions = {3, 12};
+        for (int i = 0; i < ROW_COUNT; i++) {
+            ElectricityDataModel model = new ElectricityDataModel();
+            model.setGroup(groups[i % groups.length]);
+            model.setAddress("пр. Мира, д. " + i);
+            model.setRegion(regions[i % regions.length]);
+            model.setBiggestFloor(12);
+            model.setSmallestFloor(1);
+            model.setJoint(i / 4.0);
+            model.setHasAccountingDevice(i % 2 == 0 ? "да" : null);
+            model.setExpenseHouseFirstMonth(i * 0.5);
+            model.setExpenseHouseSecondMonth(i * 0.75);
+            model.setExpenseNotLivingFirstMonth(i);
+            model.setExpenseNotLivingSecondMonth(-i);
+            model.setExpenseIndividFirstMonth(i * 100.01);
+            model.setExpenseIndividSecondMonth(i * 0.01);
+            data.add(model);
+        }
+        return data;
+    }
+
+    private static Workbook openXls(ByteArrayOutputStream serverFile) throws IOException {
+        assertNotNull(serverFile);
+        return new HSSFWorkbook(new ByteArrayInputStream(serverFile.toByteArray()));
+    }
+
+    private static Workbook openXlsx(ByteArrayOutputStream serverFile) throws IOException {
+        assertNotNull(serverFile);
+        return new XSSFWorkbook(new ByteArrayInputStream(serverFile.toByteArray()));
+    }
+
+    private static String getHeadline(Sheet sheet) {
+        return sheet.getRow(0).getCell(0).getStringCellValue();
+    }
+
+    //строки с названиями групп объединены по всей ширине листа, за ними идут строки группы по порядку
+    private static void assertDataSheet(Sheet sheet, DataType dataType, int columnCount, int[] expectedGroups,
+                                        List<String> expectedAddresses) {
+        Set<CellRangeAddress> mergedRegions = new HashSet<>(sheet.getMergedRegions());
+        List<String> groupBanners = new ArrayList<>();
+        for (int rowIndex = FIRST_DATA_ROW; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
+            Row row = sheet.getRow(rowIndex);
+            if (row == null || row.getCell(0).getCellTypeEnum() != CellType.STRING) {
+                continue;
+            }
+            groupBanners.add(row.getCell(0).getStringCellValue());
+            assertTrue("banner row " + rowIndex + " isn't merged",
+                    mergedRegions.contains(new CellRangeAddress(rowIndex, rowIndex, 0, columnCount - 1)));
+        }
+        List<String> expectedBanners = new ArrayList<>();
+        for (int group : expectedGroups) {
+            expectedBanners.add(DataGroupsGetter.getGroup(group, dataType));
+        }
+        assertEquals(expectedBanners, groupBanners);
+        assertEquals(expectedAddresses, getDataAddresses(sheet));
+    }
+
+    private static List<String> getDataAddresses(Sheet sheet) {
+        List<String> addresses = new ArrayList<>();
+        for (int rowIndex = FIRST_DATA_ROW; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
+            Row row = sheet.getRow(rowIndex);
+            if (row != null && row.getCell(0).getCellTypeEnum() == CellType.NUMERIC) {
+                addresses.add(row.getCell(1).getStringCellValue());
+            }
+        }
+        return addresses;
+    }
+
+    private static List<String> getAddressesOrderedByGroup(int size, IntUnaryOperator group,
+                                                           IntFunction<String> address) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            rows.add(row);
+        }
+        //сортировка списка устойчива, порядок строк внутри группы сохраняется
+        rows.sort((first, second) -> Integer.compare(group.applyAsInt(first), group.applyAsInt(second)));
+        List<String> addresses = new ArrayList<>();
+        for (int row : rows) {
+            addresses.add(address.apply(row));
+        }
+        return addresses;
+    }
+
+    private static void assertSameMergedRegions(Sheet expectedSheet, Sheet sheet) {
+        assertEquals(expectedSheet.getNumMergedRegions(), sheet.getNumMergedRegions());
+        assertEquals(new HashSet<>(expectedSheet.getMergedRegions()), new HashSet<>(sheet.getMergedRegions()));
+    }
+
+    private static void assertRegionsSheet(Workbook workbook, RegionSet expectedRegions) {
+        Sheet regionsSheet = workbook.getSheetAt(1);
+        assertEquals(RegionsUtils.REGIONS_PAGE_NAME, regionsSheet.getSheetName());
+        assertEquals(expectedRegions, RegionsUtils.readRegionsFromSecondPage(workbook));
+        int rowCount = RegionsUtils.getRegionsPageRowCount(expectedRegions);
+        assertEquals(rowCount - 1, regionsSheet.getLastRowNum());
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex += 2) {
+            for (int column = 0; column < RegionsUtils.REGIONS_IN_ROW; column++) {
+                assertEquals(RegionsUtils.getRegionNumber(rowIndex, column),
+                        regionsSheet.getRow(rowIndex).getCell(column).getNumericCellValue(), 0);
+            }
+        }
+    }
+
+    private static void assertSameCells(Sheet expectedSheet, Sheet sheet) {
+        assertEquals(expectedSheet.getLastRowNum(), sheet.getLastRowNum());
+        for (int rowIndex = 0; rowIndex <= expectedSheet.getLastRowNum(); rowIndex++) {
+            Row expectedRow = expectedSheet.getRow(rowIndex);
+            Row row = sheet.getRow(rowIndex);
+            if (expectedRow == null) {
+                assertEquals("row " + rowIndex, null, row);
+                continue;
+            }
+            assertNotNull("row " + rowIndex, row);
+            assertEquals("row " + rowIndex, expectedRow.getLastCellNum(), row.getLastCellNum());
+            for (int column = 0; column < expectedRow.getLastCellNum(); column++) {
+                assertSameCell(expectedRow.getCell(column), row.getCell(column));
+            }
+        }
+    }
+
+    private static void assertSameCell(Cell expectedCell, Cell cell) {
+        if (expectedCell == null) {
+            assertEquals(null, cell);
+            return;
+        }
+        String address = expectedCell.getAddress().formatAsString();
+        assertNotNull(address, cell);
+        assertEquals(address, expectedCell.getCellTypeEnum(), cell.getCellTypeEnum());
+        switch (expectedCell.getCellTypeEnum()) {
+            case STRING:
+                assertEquals(address, expectedCell.getStringCellValue(), cell.getStringCellValue());
+                break;
+            case NUMERIC:
+                assertEquals(address, expectedCell.getNumericCellValue(), cell.getNumericCellValue(), 0);
+                break;
+            case BOOLEAN:
+                assertEquals(address, expectedCell.getBooleanCellValue(), cell.getBooleanCellValue());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package file.handling.parser;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class NumberDecoderTest {
+    private static final int RANDOM_VALUES_COUNT = 200000;
+    private static final long RANDOM_SEED = 20161017L;
+
+    @Test
+    public void roundsHalfWayValuesUp() {
+        assertEquals(0.13, NumberDecoder.roundToHundredths(0.125), 0);
+        assertEquals(0.38, NumberDecoder.roundToHundredths(0.375), 0);
+        assertEquals(0.01, NumberDecoder.roundToHundredths(0.005), 0);
+        //в double 2.675 и 1.005 чуть меньше половины
+        assertEquals(2.67, NumberDecoder.roundToHundredths(2.675), 0);
+        assertEquals(1.0, NumberDecoder.roundToHundredths(1.005), 0);
+        for (double value : new double[]{0.125, 0.375, 0.005, 2.675, 1.005, 1.015, 10.235, 99.995, 1234.565}) {
+            assertRoundedAsBigDecimal(value);
+        }
+    }
+
+    @Test
+    public void roundsNegativeValuesAwayFromZero() {
+        assertEquals(-0.13, NumberDecoder.roundToHundredths(-0.125), 0);
+        assertEquals(-2.67, NumberDecoder.roundToHundredths(-2.675), 0);
+        for (double value : new double[]{-0.0, -0.001, -0.004, -0.005, -0.125, -1.015, -99.995, -1234.565}) {
+            assertRoundedAsBigDecimal(value);
+        }
+    }
+
+    @Test
+    public void roundsLargeValues() {
+        for (double value : new double[]{1e13, -1e13, 1e13 + 0.125, 9999999999999.995, 123456789012345.67,
+                -1e15 - 0.5, 1e20, Double.MAX_VALUE, -Double.MAX_VALUE}) {
+            assertRoundedAsBigDecimal(value);
+        }
+    }
+
+    @Test
+    public void rejectsNaNAndInfinityAsBigDecimal() {
+        for (double value : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            try {
+                NumberDecoder.roundToHundredths(value);
+                fail("NumberFormatException expected for " + value);
+            } catch (NumberFormatException e) {
+                //то же исключение, что и у new BigDecimal(value)
+            }
+        }
+    }
+
+    @Test
+    public void roundsRandomValuesAsBigDecimal() {
+        Random random = new Random(RANDOM_SEED);
+        for (int i = 0; i < RANDOM_VALUES_COUNT; i++) {
+            //произвольные значения разных порядков, тысячные доли и точные половины сотых
+            assertRoundedAsBigDecimal((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(16)));
+            assertRoundedAsBigDecimal(random.nextInt(100000000) / 1000.0 * (random.nextBoolean() ? 1 : -1));
+            assertRoundedAsBigDecimal((random.nextInt(100000000) * 2 + 1) / 200.0);
+        }
+    }
+
+    @Test
+    public void parsesDecimalsAsDouble() {
+        for (String value : new String[]{"0", "-0", "+0", "1", "-1", "+1.5", "007.250", ".5", "5.", "-.25",
+                "123456789012345", "1234567890.12345", "0.000000000000001", "12345678901234567",
+                "0.1234567890123456789", "0.0000000000000000000000001", "1e5", "-2.5E-3", "Infinity", "NaN"}) {
+            assertParsedAsDouble(value);
+        }
+    }
+
+    @Test
+    public void rejectsMalformedNumbersAsDouble() {
+        for (String value : new String[]{"", "-", "+", ".", "1.2.3", "1,5", "abc", "--1"}) {
+            assertParsedAsDouble(value);
+        }
+    }
+
+    @Test
+    public void parsesRandomDecimalsAsDouble() {
+        Random random = new Random(RANDOM_SEED);
+        for (int i = 0; i < RANDOM_VALUES_COUNT; i++) {
+            String value = createRandomDecimal(random);
+            assertParsedAsDouble(value);
+            assertEquals(value, bigDecimalRound(Double.parseDouble(value)),
+                    NumberDecoder.parseHundredths(value), 0);
+        }
+    }
+
+    private static String createRandomDecimal(Random random) {
+        String digits = Long.toString(Math.abs(random.nextLong()) % (long) Math.pow(10, 1 + random.nextInt(18)));
+        int fractionDigits = random.nextInt(digits.length() + 1);
+        String integerPart = digits.substring(0, digits.length() - fractionDigits);
+        String sign = random.nextBoolean() ? "-" : "";
+        if (fractionDigits == 0) {
+            return sign + digits;
+        }
+        return sign + integerPart + "." + digits.substring(digits.length() - fractionDigits);
+    }
+
+    private static double bigDecimalRound(double value) {
+        return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    //знак нуля тоже должен совпадать, поэтому сравниваются биты значений
+    private static void assertRoundedAsBigDecimal(double value) {
+        assertEquals("roundToHundredths(" + value + ")", Double.doubleToLongBits(bigDecimalRound(value)),
+                Double.doubleToLongBits(NumberDecoder.roundToHundredths(value)));
+    }
+
+    private static void assertParsedAsDouble(String value) {
+        Object expected;
+        try {
+            expected = Double.doubleToLongBits(Double.parseDouble(value));
+        } catch (NumberFormatException e) {
+            expected = NumberFormatException.class;
+        }
+        Object actual;
+        try {
+            actual = Double.doubleToLongBits(NumberDecoder.parseDouble(value));
+        } catch (NumberFormatException e) {
+            actual = NumberFormatException.class;
+        }
+        assertEquals("parseDouble(\"" + value + "\")", expected, actual);
+    }
+}